@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.datasource;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Replaces the auto-configured data source with a {@link ReplicaRoutingDataSource} as soon as a replica is
+ * configured with <code>petclinic.datasource.replicas[0].url</code>; <code>spring.datasource</code> then describes
+ * the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties primaryProperties,
+                                 ReplicaDataSourceProperties replicaProperties) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceProperties replica : replicaProperties.getReplicas()) {
+            replicas.add(replica.initializeDataSourceBuilder().build());
+        }
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+            primaryProperties.initializeDataSourceBuilder().build(), replicas,
+            replicaProperties.getReadYourWritesWindow(), ReplicaDataSourceConfig::currentSessionKey);
+        routingDataSource.startHealthChecks(replicaProperties.getHealthCheckInterval());
+        return new RoutingDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Identify the session of the current request by its HTTP session or, for stateless clients, by the
+     * authenticated user; <code>null</code> outside of requests and for anonymous stateless clients.
+     */
+    static String currentSessionKey() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            return "session:" + session.getId();
+        }
+        return request.getRemoteUser() != null ? "user:" + request.getRemoteUser() : null;
+    }
+
+    /**
+     * Defers connecting until the first statement, when the read-only flag of the transaction is known, and closes
+     * the routing data source with the application context.
+     */
+    private static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final ReplicaRoutingDataSource routingDataSource;
+
+        RoutingDataSourceProxy(ReplicaRoutingDataSource routingDataSource) {
+            super(routingDataSource);
+            this.routingDataSource = routingDataSource;
+        }
+
+        @Override
+        public void close() {
+            this.routingDataSource.close();
+        }
+    }
+
+}
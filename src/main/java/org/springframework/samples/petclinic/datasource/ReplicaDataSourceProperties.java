@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Read replica settings, bound from <code>petclinic.datasource.*</code>.
+ */
+@ConfigurationProperties("petclinic.datasource")
+public class ReplicaDataSourceProperties {
+
+    /**
+     * Connection settings of the replicas, with the same keys as <code>spring.datasource</code>.
+     */
+    private List<DataSourceProperties> replicas = new ArrayList<>();
+
+    /**
+     * Delay between two health checks of the replicas.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+    /**
+     * How long read-only transactions of a session keep going to the primary after the session wrote.
+     */
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    public List<DataSourceProperties> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<DataSourceProperties> replicas) {
+        this.replicas = replicas;
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+}
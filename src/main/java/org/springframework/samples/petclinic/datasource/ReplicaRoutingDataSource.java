@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.datasource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link DataSource} sending connections of read-only transactions to a pool of replicas and everything else to the
+ * primary.
+ * <p>
+ * Replicas are picked round-robin among those that passed their last health check; a replica failing to hand out a
+ * connection is marked unhealthy until the next successful check, and reads fall back to the primary when no replica
+ * is healthy. With a positive read-your-writes window, read-only transactions of a session that wrote within the
+ * window also go to the primary, so that they see their own writes despite replication lag.
+ * <p>
+ * The read-only flag of a transaction is only known once the transaction is set up, after the transaction manager
+ * has asked for a connection; this data source must therefore be wrapped in a {@link LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Log logger = LogFactory.getLog(ReplicaRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final long readYourWritesWindowNanos;
+
+    private final Supplier<String> sessionKey;
+
+    private final ConcurrentMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param primary              the data source for writes and for reads that cannot go to a replica
+     * @param replicas             the replica data sources
+     * @param readYourWritesWindow how long reads of a session go to the primary after it wrote; zero to disable
+     * @param sessionKey           supplies the key identifying the current session, or <code>null</code> outside
+     *                             of one
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow,
+                                    Supplier<String> sessionKey) {
+        this.primary = primary;
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        this.sessionKey = sessionKey;
+    }
+
+    /**
+     * Check the health of all replicas now and then periodically with the given interval, until {@link #close}.
+     */
+    public synchronized void startHealthChecks(Duration interval) {
+        if (this.healthChecker == null) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.healthChecker.scheduleWithFixedDelay(
+                this::checkHealth, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Validate a connection of every replica and update its health accordingly; also forgets writes that are past
+     * the read-your-writes window.
+     */
+    public void checkHealth() {
+        for (Replica replica : this.replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException ex) {
+                healthy = false;
+            }
+            if (replica.healthy != healthy) {
+                logger.info("Replica " + replica.dataSource + (healthy ? " is healthy again" : " is unhealthy"));
+            }
+            replica.healthy = healthy;
+        }
+        long now = System.nanoTime();
+        this.lastWrites.values().removeIf(writtenAt -> now - writtenAt > this.readYourWritesWindowNanos);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!routeToReplica()) {
+            return connect(this.primary, username, password);
+        }
+        for (int attempt = 0; attempt < this.replicas.size(); attempt++) {
+            Replica replica = this.replicas.get(Math.floorMod(this.nextReplica.getAndIncrement(), this.replicas.size()));
+            if (replica.healthy) {
+                try {
+                    return connect(replica.dataSource, username, password);
+                } catch (SQLException ex) {
+                    logger.warn("Replica " + replica.dataSource + " failed, marking it unhealthy", ex);
+                    replica.healthy = false;
+                }
+            }
+        }
+        return connect(this.primary, username, password);
+    }
+
+    /**
+     * Whether the connection requested now may come from a replica; records writes for the read-your-writes window
+     * on the way.
+     */
+    private boolean routeToReplica() {
+        String session = this.readYourWritesWindowNanos > 0 ? this.sessionKey.get() : null;
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (session != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                this.lastWrites.put(session, System.nanoTime());
+            }
+            return false;
+        }
+        if (session != null) {
+            Long writtenAt = this.lastWrites.get(session);
+            if (writtenAt != null && System.nanoTime() - writtenAt <= this.readYourWritesWindowNanos) {
+                return false;
+            }
+        }
+        return !this.replicas.isEmpty();
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    /**
+     * Stop the health checks and close the primary and replica data sources that are {@link AutoCloseable}.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.healthChecker != null) {
+            this.healthChecker.shutdownNow();
+            this.healthChecker = null;
+        }
+        closeQuietly(this.primary);
+        for (Replica replica : this.replicas) {
+            closeQuietly(replica.dataSource);
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception ex) {
+                logger.warn("Could not close " + dataSource, ex);
+            }
+        }
+    }
+
+    private static class Replica {
+
+        private final DataSource dataSource;
+
+        private volatile boolean healthy = true;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+}
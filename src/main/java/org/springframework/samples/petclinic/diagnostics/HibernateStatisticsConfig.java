@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.diagnostics;
+
+import java.time.Duration;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Opt-in Hibernate instrumentation for the JPA profiles, enabled with <code>petclinic.jpa.statistics.enabled=true</code>:
+ * turns on Hibernate statistics, publishes them through {@link HibernateStatisticsMonitor}, and logs the
+ * {@link RequestStatistics} of API requests slower than <code>petclinic.jpa.statistics.slow-request-threshold</code>.
+ */
+@Configuration
+@Profile({"jpa", "spring-data-jpa"})
+@ConditionalOnProperty(name = HibernateStatisticsConfig.ENABLED_PROPERTY, havingValue = "true")
+public class HibernateStatisticsConfig {
+
+    public static final String ENABLED_PROPERTY = "petclinic.jpa.statistics.enabled";
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateStatisticsCustomizer() {
+        RequestStatisticsInterceptor interceptor = new RequestStatisticsInterceptor();
+        return properties -> {
+            properties.put(AvailableSettings.GENERATE_STATISTICS, "true");
+            properties.put(AvailableSettings.INTERCEPTOR, interceptor);
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, interceptor);
+        };
+    }
+
+    @Bean
+    public HibernateStatisticsMonitor hibernateStatisticsMonitor(EntityManagerFactory entityManagerFactory) {
+        return new HibernateStatisticsMonitor(entityManagerFactory);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestStatisticsFilter> requestStatisticsFilter(
+        @Value("${petclinic.jpa.statistics.slow-request-threshold:500ms}") Duration threshold) {
+        FilterRegistrationBean<RequestStatisticsFilter> registration =
+            new FilterRegistrationBean<>(new RequestStatisticsFilter(threshold));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+}
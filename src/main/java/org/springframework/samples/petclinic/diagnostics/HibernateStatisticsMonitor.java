@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Publishes the Hibernate {@link Statistics} of the session factory through JMX and, as a {@link #snapshot()}, the
+ * diagnostics REST endpoint. The counters are cumulative since startup or the last {@link #reset()}.
+ */
+@ManagedResource("petclinic:type=HibernateStatistics")
+public class HibernateStatisticsMonitor {
+
+    private final Statistics statistics;
+
+    public HibernateStatisticsMonitor(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ManagedAttribute
+    public long getEntityLoadCount() {
+        return this.statistics.getEntityLoadCount();
+    }
+
+    @ManagedAttribute
+    public long getEntityFetchCount() {
+        return this.statistics.getEntityFetchCount();
+    }
+
+    @ManagedAttribute
+    public long getCollectionLoadCount() {
+        return this.statistics.getCollectionLoadCount();
+    }
+
+    @ManagedAttribute
+    public long getCollectionFetchCount() {
+        return this.statistics.getCollectionFetchCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryExecutionCount() {
+        return this.statistics.getQueryExecutionCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryExecutionMaxTime() {
+        return this.statistics.getQueryExecutionMaxTime();
+    }
+
+    @ManagedAttribute
+    public String getQueryExecutionMaxTimeQueryString() {
+        return this.statistics.getQueryExecutionMaxTimeQueryString();
+    }
+
+    @ManagedAttribute
+    public long getPrepareStatementCount() {
+        return this.statistics.getPrepareStatementCount();
+    }
+
+    @ManagedAttribute
+    public long getFlushCount() {
+        return this.statistics.getFlushCount();
+    }
+
+    @ManagedAttribute
+    public double getSecondLevelCacheHitRatio() {
+        return ratio(this.statistics.getSecondLevelCacheHitCount(), this.statistics.getSecondLevelCacheMissCount());
+    }
+
+    @ManagedAttribute
+    public double getQueryCacheHitRatio() {
+        return ratio(this.statistics.getQueryCacheHitCount(), this.statistics.getQueryCacheMissCount());
+    }
+
+    @ManagedAttribute
+    public double getQueryPlanCacheHitRatio() {
+        return ratio(this.statistics.getQueryPlanCacheHitCount(), this.statistics.getQueryPlanCacheMissCount());
+    }
+
+    @ManagedOperation
+    public void reset() {
+        this.statistics.clear();
+    }
+
+    /**
+     * @return the counters, hit ratios and per-query execution times, slowest queries first
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("startTime", this.statistics.getStartTime());
+        snapshot.put("sessionOpenCount", this.statistics.getSessionOpenCount());
+        snapshot.put("transactionCount", this.statistics.getTransactionCount());
+        snapshot.put("entityLoadCount", getEntityLoadCount());
+        snapshot.put("entityFetchCount", getEntityFetchCount());
+        snapshot.put("entityInsertCount", this.statistics.getEntityInsertCount());
+        snapshot.put("entityUpdateCount", this.statistics.getEntityUpdateCount());
+        snapshot.put("entityDeleteCount", this.statistics.getEntityDeleteCount());
+        snapshot.put("collectionLoadCount", getCollectionLoadCount());
+        snapshot.put("collectionFetchCount", getCollectionFetchCount());
+        snapshot.put("queryExecutionCount", getQueryExecutionCount());
+        snapshot.put("queryExecutionMaxTime", getQueryExecutionMaxTime());
+        snapshot.put("queryExecutionMaxTimeQueryString", getQueryExecutionMaxTimeQueryString());
+        snapshot.put("prepareStatementCount", getPrepareStatementCount());
+        snapshot.put("flushCount", getFlushCount());
+        snapshot.put("secondLevelCacheHitCount", this.statistics.getSecondLevelCacheHitCount());
+        snapshot.put("secondLevelCacheMissCount", this.statistics.getSecondLevelCacheMissCount());
+        snapshot.put("secondLevelCacheHitRatio", getSecondLevelCacheHitRatio());
+        snapshot.put("queryCacheHitCount", this.statistics.getQueryCacheHitCount());
+        snapshot.put("queryCacheMissCount", this.statistics.getQueryCacheMissCount());
+        snapshot.put("queryCacheHitRatio", getQueryCacheHitRatio());
+        snapshot.put("queryPlanCacheHitCount", this.statistics.getQueryPlanCacheHitCount());
+        snapshot.put("queryPlanCacheMissCount", this.statistics.getQueryPlanCacheMissCount());
+        snapshot.put("queryPlanCacheHitRatio", getQueryPlanCacheHitRatio());
+        snapshot.put("queries", queries());
+        return snapshot;
+    }
+
+    private List<Map<String, Object>> queries() {
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (String query : this.statistics.getQueries()) {
+            QueryStatistics queryStatistics = this.statistics.getQueryStatistics(query);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("query", query);
+            entry.put("executionCount", queryStatistics.getExecutionCount());
+            entry.put("executionAvgTime", queryStatistics.getExecutionAvgTime());
+            entry.put("executionMaxTime", queryStatistics.getExecutionMaxTime());
+            entry.put("executionRowCount", queryStatistics.getExecutionRowCount());
+            queries.add(entry);
+        }
+        queries.sort(Comparator.comparing(entry -> (Long) entry.get("executionMaxTime"), Comparator.reverseOrder()));
+        return queries;
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.diagnostics;
+
+/**
+ * Counts the Hibernate work done on behalf of the current request: entities loaded, SQL statements prepared and
+ * flushes. Counters are confined to the request thread, so unlike the session factory wide
+ * {@link org.hibernate.stat.Statistics} they are not mixed up with concurrent requests.
+ */
+final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long entitiesLoaded;
+
+    private long statements;
+
+    private long flushes;
+
+    private RequestStatistics() {
+    }
+
+    /**
+     * Start counting for the current thread, replacing any counters it had.
+     */
+    static RequestStatistics start() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * @return the counters of the current thread, or <code>null</code> if it is not counting
+     */
+    static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stop counting for the current thread.
+     */
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static void entityLoaded() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entitiesLoaded++;
+        }
+    }
+
+    static void statementPrepared() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+        }
+    }
+
+    static void flushed() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.flushes++;
+        }
+    }
+
+    long getEntitiesLoaded() {
+        return this.entitiesLoaded;
+    }
+
+    long getStatements() {
+        return this.statements;
+    }
+
+    long getFlushes() {
+        return this.flushes;
+    }
+
+    @Override
+    public String toString() {
+        return this.entitiesLoaded + " entities loaded, " + this.statements + " statements, " + this.flushes
+            + " flushes";
+    }
+
+}
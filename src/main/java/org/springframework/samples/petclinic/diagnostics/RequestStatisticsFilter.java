@@ -0,0 +1,62 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.diagnostics;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Counts the Hibernate work of each request with {@link RequestStatistics} and logs it for requests that take at
+ * least the configured threshold.
+ */
+class RequestStatisticsFilter extends OncePerRequestFilter {
+
+    private static final Log logger = LogFactory.getLog(RequestStatisticsFilter.class);
+
+    private final long thresholdNanos;
+
+    RequestStatisticsFilter(Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        RequestStatistics statistics = RequestStatistics.start();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestStatistics.stop();
+            if (elapsed >= this.thresholdNanos && logger.isInfoEnabled()) {
+                logger.info(request.getMethod() + " " + request.getRequestURI() + " took "
+                    + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms: " + statistics);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.diagnostics;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/**
+ * Session factory wide interceptor feeding {@link RequestStatistics}. Stateless, so it is shared by all sessions.
+ */
+class RequestStatisticsInterceptor extends EmptyInterceptor implements StatementInspector {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestStatistics.entityLoaded();
+        return false;
+    }
+
+    @Override
+    public void postFlush(Iterator entities) {
+        RequestStatistics.flushed();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        RequestStatistics.statementPrepared();
+        return sql;
+    }
+
+}
@@ -20,18 +20,43 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Simple JavaBean domain object with an id property. Used as a base class for objects needing this property.
+ * <p>
+ * Ids are taken from identity columns by default. The <code>META-INF/pooled-ids.xml</code> mapping switches them to
+ * the {@value #POOLED_ID_GENERATOR} generator, so that JPA can batch inserts.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
  */
 @MappedSuperclass
 public class BaseEntity {
+
+    /**
+     * Generator reserving {@value #POOLED_ID_BLOCK_SIZE} ids per round trip from the
+     * <code>&lt;table&gt;_pooled_id_seq</code> sequence of each table, or from a table of that name on databases
+     * without sequences.
+     */
+    public static final String POOLED_ID_GENERATOR = "pooled-sequence";
+
+    /**
+     * Must match the increment of the id sequences in <code>db/*&#47;pooledIds.sql</code>.
+     */
+    public static final int POOLED_ID_BLOCK_SIZE = 50;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GenericGenerator(name = POOLED_ID_GENERATOR, strategy = "org.springframework.samples.petclinic.model.PooledSequenceIdGenerator",
+        parameters = {
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + POOLED_ID_BLOCK_SIZE),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+        })
     protected Integer id;
 
     public Integer getId() {
@@ -25,6 +25,9 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.validation.constraints.Digits;
@@ -50,9 +53,18 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 @Entity
 @Table(name = "owners")
+@NamedEntityGraph(name = Owner.PETS_WITH_VISITS, attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pet"),
+    subgraphs = @NamedSubgraph(name = "pet", attributeNodes = {@NamedAttributeNode("type"), @NamedAttributeNode("visits")}))
 @JsonSerialize(using = JacksonCustomOwnerSerializer.class)
 @JsonDeserialize(using = JacksonCustomOwnerDeserializer.class)
 public class Owner extends Person {
+
+    /**
+     * Entity graph fetching the pets of the owner with their types and visits, as serialized by both the owner list
+     * and the owner detail.
+     */
+    public static final String PETS_WITH_VISITS = "Owner.petsWithVisits";
+
     @Column(name = "address")
     @NotEmpty
     private String address;
@@ -66,7 +78,7 @@ public class Owner extends Person {
     @Digits(fraction = 0, integer = 10)
     private String telephone;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.LAZY)
     private Set<Pet> pets;
 
 
@@ -116,6 +128,10 @@ public class Owner extends Person {
         pet.setOwner(this);
     }
 
+    public void removePet(Pet pet) {
+        getPetsInternal().remove(pet);
+    }
+
     /**
      * Return the Pet with the given name, or null if none found for this Owner.
      *
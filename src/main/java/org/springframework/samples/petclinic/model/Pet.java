@@ -28,6 +28,10 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
@@ -52,10 +56,30 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 @Entity
 @Table(name = "pets")
+@NamedEntityGraph(name = Pet.DETAIL,
+    attributeNodes = {@NamedAttributeNode("type"), @NamedAttributeNode("owner"), @NamedAttributeNode("visits")})
+@NamedQueries({
+    @NamedQuery(name = Pet.DELETE_BY_ID, query = "DELETE FROM Pet pet WHERE pet.id = :id"),
+    @NamedQuery(name = Pet.DELETE_BY_TYPE_ID, query = "DELETE FROM Pet pet WHERE pet.type.id = :typeId")})
 @JsonSerialize(using = JacksonCustomPetSerializer.class)
 @JsonDeserialize(using = JacksonCustomPetDeserializer.class)
 public class Pet extends NamedEntity {
 
+    /**
+     * Entity graph fetching the type, owner and visits of the pet, as serialized by the pet endpoints.
+     */
+    public static final String DETAIL = "Pet.detail";
+
+    /**
+     * Bulk delete of the pet with the given <code>id</code>, whose visits must have been deleted first.
+     */
+    public static final String DELETE_BY_ID = "Pet.deleteById";
+
+    /**
+     * Bulk delete of all pets of the type with the given <code>typeId</code>.
+     */
+    public static final String DELETE_BY_TYPE_ID = "Pet.deleteByTypeId";
+
     @Column(name = "birth_date")
     @Temporal(TemporalType.DATE)
     @DateTimeFormat(pattern = "yyyy/MM/dd")
@@ -69,7 +93,7 @@ public class Pet extends NamedEntity {
     @JoinColumn(name = "owner_id")
     private Owner owner;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "pet", fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "pet", fetch = FetchType.LAZY)
     private Set<Visit> visits;
 
 
@@ -119,4 +143,8 @@ public class Pet extends NamedEntity {
         visit.setPet(this);
     }
 
+    public void removeVisit(Visit visit) {
+        getVisitsInternal().remove(visit);
+    }
+
 }
@@ -15,15 +15,28 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * @author Juergen Hoeller
  *         Can be Cat, Dog, Hamster...
  */
 @Entity
 @Table(name = "types")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedQuery(name = PetType.DELETE_BY_ID, query = "DELETE FROM PetType ptype WHERE ptype.id = :id")
 public class PetType extends NamedEntity {
 
+    /**
+     * Bulk delete of the pet type with the given <code>id</code>, whose pets must have been deleted first.
+     */
+    public static final String DELETE_BY_ID = "PetType.deleteById";
+
 }
@@ -15,9 +15,15 @@
  */
 package org.springframework.samples.petclinic.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * Models a {@link Vet Vet's} specialty (for example, dentistry).
  *
@@ -25,6 +31,20 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "specialties")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedQuery(name = Specialty.DELETE_BY_ID, query = "DELETE FROM Specialty specialty WHERE specialty.id = :id")
+@NamedNativeQuery(name = Specialty.DELETE_VET_SPECIALTIES, query = "DELETE FROM vet_specialties WHERE specialty_id = :id")
 public class Specialty extends NamedEntity {
 
+    /**
+     * Bulk delete of the specialty with the given <code>id</code>, which must not be assigned to any vet.
+     */
+    public static final String DELETE_BY_ID = "Specialty.deleteById";
+
+    /**
+     * Native delete of the assignments of the specialty with the given <code>id</code> to vets.
+     */
+    public static final String DELETE_VET_SPECIALTIES = "Specialty.deleteVetSpecialties";
+
 }
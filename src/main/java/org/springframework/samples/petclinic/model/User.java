@@ -27,7 +27,7 @@ public class User {
     @Column(name = "enabled")
     private Boolean enabled;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "user", fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "user", fetch = FetchType.LAZY)
     private Set<Role> roles;
 
     public String getUsername() {
@@ -21,6 +21,11 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -41,10 +46,37 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 @Entity
 @Table(name = "visits")
+@NamedEntityGraph(name = Visit.WITH_PET, attributeNodes = @NamedAttributeNode(value = "pet", subgraph = "pet"),
+    subgraphs = @NamedSubgraph(name = "pet", attributeNodes = {@NamedAttributeNode("type"), @NamedAttributeNode("owner")}))
+@NamedQueries({
+    @NamedQuery(name = Visit.DELETE_BY_ID, query = "DELETE FROM Visit visit WHERE visit.id = :id"),
+    @NamedQuery(name = Visit.DELETE_BY_PET_ID, query = "DELETE FROM Visit visit WHERE visit.pet.id = :petId"),
+    @NamedQuery(name = Visit.DELETE_BY_PET_TYPE_ID, query = "DELETE FROM Visit visit WHERE visit.pet.id IN "
+        + "(SELECT pet.id FROM Pet pet WHERE pet.type.id = :typeId)")})
 @JsonSerialize(using = JacksonCustomVisitSerializer.class)
 @JsonDeserialize(using = JacksonCustomVisitDeserializer.class)
 public class Visit extends BaseEntity {
 
+    /**
+     * Entity graph fetching the pet of the visit with its type and owner, as serialized by the visit list.
+     */
+    public static final String WITH_PET = "Visit.withPet";
+
+    /**
+     * Bulk delete of the visit with the given <code>id</code>.
+     */
+    public static final String DELETE_BY_ID = "Visit.deleteById";
+
+    /**
+     * Bulk delete of the visits of the pet with the given <code>petId</code>.
+     */
+    public static final String DELETE_BY_PET_ID = "Visit.deleteByPetId";
+
+    /**
+     * Bulk delete of the visits of all pets of the type with the given <code>typeId</code>.
+     */
+    public static final String DELETE_BY_PET_TYPE_ID = "Visit.deleteByPetTypeId";
+
     /**
      * Holds value of property date.
      */
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model.projection;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Read-only summary of a {@link org.springframework.samples.petclinic.model.Pet} as listed with its owner,
+ * referencing the owner by id.
+ */
+@JsonPropertyOrder({"id", "name", "birthDate", "type", "owner", "visits"})
+public final class OwnerPetSummary {
+
+    private static final Comparator<OwnerPetSummary> BY_NAME =
+        Comparator.comparing(OwnerPetSummary::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    private final Integer id;
+
+    private final String name;
+
+    private final LocalDate birthDate;
+
+    private final PetTypeSummary type;
+
+    private final Integer ownerId;
+
+    private final List<VisitSummary> visits;
+
+    public OwnerPetSummary(Integer id, String name, Date birthDate, PetTypeSummary type, Integer ownerId,
+                           Collection<VisitSummary> visits) {
+        this.id = id;
+        this.name = name;
+        this.birthDate = LocalDates.of(birthDate);
+        this.type = type;
+        this.ownerId = ownerId;
+        this.visits = VisitSummary.newestFirst(visits);
+    }
+
+    public Integer getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy/MM/dd")
+    public LocalDate getBirthDate() {
+        return this.birthDate;
+    }
+
+    public PetTypeSummary getType() {
+        return this.type;
+    }
+
+    @JsonProperty("owner")
+    public Integer getOwnerId() {
+        return this.ownerId;
+    }
+
+    /**
+     * @return the visits of the pet, newest first
+     */
+    public List<VisitSummary> getVisits() {
+        return this.visits;
+    }
+
+    /**
+     * @return an unmodifiable copy of the given pets, ordered by name like
+     * {@link org.springframework.samples.petclinic.model.Owner#getPets()}
+     */
+    static List<OwnerPetSummary> byName(Collection<OwnerPetSummary> pets) {
+        List<OwnerPetSummary> sorted = new ArrayList<>(pets);
+        sorted.sort(BY_NAME);
+        return Collections.unmodifiableList(sorted);
+    }
+
+}
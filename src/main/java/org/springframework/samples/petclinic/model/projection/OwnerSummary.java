@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model.projection;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Read-only summary of an {@link org.springframework.samples.petclinic.model.Owner} with its pets and their visits.
+ */
+@JsonPropertyOrder({"id", "firstName", "lastName", "address", "city", "telephone", "pets"})
+public final class OwnerSummary {
+
+    private final Integer id;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final String address;
+
+    private final String city;
+
+    private final String telephone;
+
+    private final List<OwnerPetSummary> pets;
+
+    public OwnerSummary(Integer id, String firstName, String lastName, String address, String city, String telephone,
+                        Collection<OwnerPetSummary> pets) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.address = address;
+        this.city = city;
+        this.telephone = telephone;
+        this.pets = OwnerPetSummary.byName(pets);
+    }
+
+    /**
+     * Create the summary of an owner listed with one of its pets, leaving out the owner's pets.
+     */
+    public OwnerSummary(Integer id, String firstName, String lastName, String address, String city, String telephone) {
+        this(id, firstName, lastName, address, city, telephone, Collections.emptyList());
+    }
+
+    public Integer getId() {
+        return this.id;
+    }
+
+    public String getFirstName() {
+        return this.firstName;
+    }
+
+    public String getLastName() {
+        return this.lastName;
+    }
+
+    public String getAddress() {
+        return this.address;
+    }
+
+    public String getCity() {
+        return this.city;
+    }
+
+    public String getTelephone() {
+        return this.telephone;
+    }
+
+    /**
+     * @return the pets of the owner, ordered by name
+     */
+    public List<OwnerPetSummary> getPets() {
+        return this.pets;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model.projection;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Read-only summary of a {@link org.springframework.samples.petclinic.model.Pet} with its owner and visits.
+ */
+@JsonPropertyOrder({"id", "name", "birthDate", "type", "owner", "visits"})
+public final class PetSummary {
+
+    private final Integer id;
+
+    private final String name;
+
+    private final LocalDate birthDate;
+
+    private final PetTypeSummary type;
+
+    private final OwnerSummary owner;
+
+    private final List<VisitSummary> visits;
+
+    public PetSummary(Integer id, String name, Date birthDate, PetTypeSummary type, OwnerSummary owner,
+                      Collection<VisitSummary> visits) {
+        this.id = id;
+        this.name = name;
+        this.birthDate = LocalDates.of(birthDate);
+        this.type = type;
+        this.owner = owner;
+        this.visits = VisitSummary.newestFirst(visits);
+    }
+
+    public Integer getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy/MM/dd")
+    public LocalDate getBirthDate() {
+        return this.birthDate;
+    }
+
+    public PetTypeSummary getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the owner of the pet, without the owner's pets
+     */
+    @JsonIgnoreProperties("pets")
+    public OwnerSummary getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * @return the visits of the pet, newest first
+     */
+    public List<VisitSummary> getVisits() {
+        return this.visits;
+    }
+
+}
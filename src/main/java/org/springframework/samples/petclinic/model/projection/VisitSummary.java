@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model.projection;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Read-only summary of a {@link org.springframework.samples.petclinic.model.Visit}, referencing its pet by id.
+ */
+@JsonPropertyOrder({"id", "date", "description", "pet"})
+public final class VisitSummary {
+
+    private static final Comparator<VisitSummary> NEWEST_FIRST =
+        Comparator.comparing(VisitSummary::getDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final Integer id;
+
+    private final LocalDate date;
+
+    private final String description;
+
+    private final Integer petId;
+
+    /**
+     * Also used by JPQL constructor expressions, hence the {@link Date} parameter.
+     */
+    public VisitSummary(Integer id, Date date, String description, Integer petId) {
+        this.id = id;
+        this.date = LocalDates.of(date);
+        this.description = description;
+        this.petId = petId;
+    }
+
+    public Integer getId() {
+        return this.id;
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy/MM/dd")
+    public LocalDate getDate() {
+        return this.date;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    @JsonProperty("pet")
+    public Integer getPetId() {
+        return this.petId;
+    }
+
+    /**
+     * @return an unmodifiable copy of the given visits, newest first like
+     * {@link org.springframework.samples.petclinic.model.Pet#getVisits()}
+     */
+    static List<VisitSummary> newestFirst(Collection<VisitSummary> visits) {
+        List<VisitSummary> sorted = new ArrayList<>(visits);
+        sorted.sort(NEWEST_FIRST);
+        return Collections.unmodifiableList(sorted);
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Immutable, read-only summaries of the model, read with projection queries for listings that do not need managed
+ * entities. They serialize to the same JSON as the entities they summarize.
+ */
+package org.springframework.samples.petclinic.model.projection;
@@ -16,10 +16,13 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
 
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant with Spring Data naming
@@ -43,6 +46,22 @@ public interface OwnerRepository {
      */
     Collection<Owner> findByLastName(String lastName) throws DataAccessException;
 
+    /**
+     * Retrieve the last names of all <code>Owner</code>s without loading the owners themselves.
+     *
+     * @return a <code>Map</code> from <code>Owner</code> id to last name
+     */
+    Map<Integer, String> findAllLastNames() throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Owner</code>s with the given ids, with their pets and visits.
+     *
+     * @param ids the ids to search for
+     * @return a <code>Collection</code> of the <code>Owner</code>s found, in no particular order; ids that do not exist
+     * are skipped
+     */
+    Collection<Owner> findByIds(Collection<Integer> ids) throws DataAccessException;
+
     /**
      * Retrieve an <code>Owner</code> from the data store by id.
      *
@@ -68,6 +87,39 @@ public interface OwnerRepository {
      * found)
      */
 	Collection<Owner> findAll() throws DataAccessException;
+
+    /**
+     * Retrieve the next page of <code>Owner</code>s ordered by id, starting after the given id (keyset pagination). Pages
+     * are located through the primary key, so deep pages are as cheap as the first one.
+     *
+     * @param afterId the id of the last <code>Owner</code> of the previous page, or <code>0</code> for the first page
+     * @param limit   the maximum number of <code>Owner</code>s to return; must be positive
+     * @return a <code>Collection</code> of at most <code>limit</code> <code>Owner</code>s with ids greater than
+     * <code>afterId</code>, in ascending id order
+     */
+    Collection<Owner> findPage(int afterId, int limit) throws DataAccessException;
+
+    /**
+     * Retrieve read-only summaries of all <code>Owner</code>s with their pets and visits, read with projection queries
+     * instead of loading the entities.
+     *
+     * @return a <code>Collection</code> of <code>OwnerSummary</code>s ordered by id (or an empty <code>Collection</code>
+     * if none found)
+     */
+    Collection<OwnerSummary> findAllSummaries() throws DataAccessException;
+
+    /**
+     * Stream all <code>Owner</code>s with their pets and visits, ordered by id, from a forward-only, read-only database cursor instead of
+     * loading them all into memory.
+     * <p>
+     * The stream holds a database cursor until it is closed, so callers must close it (for example with
+     * try-with-resources) and consume it within the transaction it was opened in. JPA implementations detach the
+     * returned entities by clearing the persistence context as the stream advances, so the calling transaction must
+     * not rely on other managed entities while streaming.
+     *
+     * @return a <code>Stream</code> of all <code>Owner</code>s
+     */
+    Stream<Owner> streamAll() throws DataAccessException;
 	
     /**
      * Delete an <code>Owner</code> to the data store by <code>Owner</code>.
@@ -77,5 +129,19 @@ public interface OwnerRepository {
      */
 	void delete(Owner owner) throws DataAccessException;
 
+    /**
+     * Save the given <code>Owner</code>s with batched statements, inserting new ones and updating the others.
+     *
+     * @param owners the <code>Owner</code>s to save
+     * @see #save(Owner)
+     */
+    void saveAll(Collection<Owner> owners) throws DataAccessException;
+
+    /**
+     * Delete the given <code>Owner</code>s together with their pets and the pets' visits.
+     *
+     * @param owners the <code>Owner</code>s to delete
+     */
+    void deleteAll(Collection<Owner> owners) throws DataAccessException;
 
 }
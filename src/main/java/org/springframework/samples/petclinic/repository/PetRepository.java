@@ -22,6 +22,7 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
 
 /**
  * Repository class for <code>Pet</code> domain objects All method names are compliant with Spring Data naming
@@ -67,6 +68,26 @@ public interface PetRepository {
      */
 	Collection<Pet> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve read-only summaries of all <code>Pet</code>s with their owners and visits, read with projection queries
+     * instead of loading the entities.
+     *
+     * @return a <code>Collection</code> of <code>PetSummary</code>s ordered by id (or an empty <code>Collection</code>
+     * if none found)
+     */
+    Collection<PetSummary> findAllSummaries() throws DataAccessException;
+
+    /**
+     * Retrieve the next page of <code>Pet</code>s ordered by id, starting after the given id (keyset pagination). Pages
+     * are located through the primary key, so deep pages are as cheap as the first one.
+     *
+     * @param afterId the id of the last <code>Pet</code> of the previous page, or <code>0</code> for the first page
+     * @param limit   the maximum number of <code>Pet</code>s to return; must be positive
+     * @return a <code>Collection</code> of at most <code>limit</code> <code>Pet</code>s with ids greater than
+     * <code>afterId</code>, in ascending id order
+     */
+    Collection<Pet> findPage(int afterId, int limit) throws DataAccessException;
+
     /**
      * Delete an <code>Pet</code> to the data store by <code>Pet</code>.
      *
@@ -75,4 +96,19 @@ public interface PetRepository {
      */
 	void delete(Pet pet) throws DataAccessException;
 
+    /**
+     * Save the given <code>Pet</code>s with batched statements, inserting new ones and updating the others.
+     *
+     * @param pets the <code>Pet</code>s to save
+     * @see #save(Pet)
+     */
+    void saveAll(Collection<Pet> pets) throws DataAccessException;
+
+    /**
+     * Delete the given <code>Pet</code>s together with their visits.
+     *
+     * @param pets the <code>Pet</code>s to delete
+     */
+    void deleteAll(Collection<Pet> pets) throws DataAccessException;
+
 }
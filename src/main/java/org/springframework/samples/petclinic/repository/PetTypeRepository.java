@@ -29,6 +29,13 @@ import org.springframework.samples.petclinic.model.PetType;
 public interface PetTypeRepository {
 	
 	PetType findById(int id) throws DataAccessException;
+
+	/**
+	 * Find the pet type with the given name, ignoring case.
+	 *
+	 * @return the pet type with the lowest id among those with that name, or <code>null</code> if there is none
+	 */
+	PetType findByName(String name) throws DataAccessException;
 	
 	Collection<PetType> findAll() throws DataAccessException;
 
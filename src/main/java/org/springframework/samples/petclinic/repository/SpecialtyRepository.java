@@ -29,6 +29,13 @@ import org.springframework.samples.petclinic.model.Specialty;
 public interface SpecialtyRepository {
 	
 	Specialty findById(int id) throws DataAccessException;
+
+	/**
+	 * Find the specialty with the given name, ignoring case.
+	 *
+	 * @return the specialty with the lowest id among those with that name, or <code>null</code> if there is none
+	 */
+	Specialty findByName(String name) throws DataAccessException;
 	
 	Collection<Specialty> findAll() throws DataAccessException;
 	
@@ -1,9 +1,19 @@
 package org.springframework.samples.petclinic.repository;
 
+import java.util.Collection;
+
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.User;
 
 public interface UserRepository {
 
     void save(User user) throws DataAccessException;
+
+    /**
+     * Save the given <code>User</code>s, inserting new ones and updating existing ones together with their roles.
+     *
+     * @param users the <code>User</code>s to save
+     * @see #save(User)
+     */
+    void saveAll(Collection<User> users) throws DataAccessException;
 }
@@ -38,6 +38,17 @@ public interface VetRepository {
      * @return a <code>Collection</code> of <code>Vet</code>s
      */
     Collection<Vet> findAll() throws DataAccessException;
+
+    /**
+     * Retrieve the next page of <code>Vet</code>s ordered by id, starting after the given id (keyset pagination). Pages
+     * are located through the primary key, so deep pages are as cheap as the first one.
+     *
+     * @param afterId the id of the last <code>Vet</code> of the previous page, or <code>0</code> for the first page
+     * @param limit   the maximum number of <code>Vet</code>s to return; must be positive
+     * @return a <code>Collection</code> of at most <code>limit</code> <code>Vet</code>s with ids greater than
+     * <code>afterId</code>, in ascending id order
+     */
+    Collection<Vet> findPage(int afterId, int limit) throws DataAccessException;
     
 	Vet findById(int id) throws DataAccessException;
 
@@ -17,6 +17,7 @@ package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -48,6 +49,45 @@ public interface VisitRepository {
 	
 	Collection<Visit> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve the next page of <code>Visit</code>s ordered by id, starting after the given id (keyset pagination). Pages
+     * are located through the primary key, so deep pages are as cheap as the first one.
+     *
+     * @param afterId the id of the last <code>Visit</code> of the previous page, or <code>0</code> for the first page
+     * @param limit   the maximum number of <code>Visit</code>s to return; must be positive
+     * @return a <code>Collection</code> of at most <code>limit</code> <code>Visit</code>s with ids greater than
+     * <code>afterId</code>, in ascending id order
+     */
+    Collection<Visit> findPage(int afterId, int limit) throws DataAccessException;
+
+    /**
+     * Stream all <code>Visit</code>s with their pets, ordered by id, from a forward-only, read-only database cursor instead of
+     * loading them all into memory.
+     * <p>
+     * The stream holds a database cursor until it is closed, so callers must close it (for example with
+     * try-with-resources) and consume it within the transaction it was opened in. JPA implementations detach the
+     * returned entities by clearing the persistence context as the stream advances, so the calling transaction must
+     * not rely on other managed entities while streaming.
+     *
+     * @return a <code>Stream</code> of all <code>Visit</code>s
+     */
+    Stream<Visit> streamAll() throws DataAccessException;
+
 	void delete(Visit visit) throws DataAccessException;
 
+    /**
+     * Save the given <code>Visit</code>s with batched statements, inserting new ones and updating the others.
+     *
+     * @param visits the <code>Visit</code>s to save
+     * @see #save(Visit)
+     */
+    void saveAll(Collection<Visit> visits) throws DataAccessException;
+
+    /**
+     * Delete the given <code>Visit</code>s.
+     *
+     * @param visits the <code>Visit</code>s to delete
+     */
+    void deleteAll(Collection<Visit> visits) throws DataAccessException;
+
 }
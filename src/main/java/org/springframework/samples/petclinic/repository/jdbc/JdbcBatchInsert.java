@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+/**
+ * Batched <code>INSERT</code> returning the generated <code>id</code> of every inserted row, which
+ * {@link org.springframework.jdbc.core.simple.SimpleJdbcInsert} can only do one row at a time.
+ */
+final class JdbcBatchInsert {
+
+    /**
+     * Maximum number of rows sent in one JDBC batch.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    private JdbcBatchInsert() {
+    }
+
+    /**
+     * Execute the given insert once per argument array, in JDBC batches of at most {@link #BATCH_SIZE} rows.
+     *
+     * @param sql       the insert statement, with <code>?</code> placeholders
+     * @param batchArgs the arguments of each row
+     * @return the generated ids, in the order of <code>batchArgs</code>
+     */
+    static List<Integer> executeAndReturnKeys(JdbcOperations jdbcOperations, String sql, List<Object[]> batchArgs)
+        throws DataAccessException {
+        return jdbcOperations.execute((ConnectionCallback<List<Integer>>) con -> {
+            List<Integer> keys = new ArrayList<>(batchArgs.size());
+            try (PreparedStatement ps = con.prepareStatement(sql, new String[] {"id"})) {
+                for (int from = 0; from < batchArgs.size(); from += BATCH_SIZE) {
+                    for (Object[] args : batchArgs.subList(from, Math.min(from + BATCH_SIZE, batchArgs.size()))) {
+                        for (int i = 0; i < args.length; i++) {
+                            StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, args[i]);
+                        }
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        while (rs.next()) {
+                            keys.add(rs.getInt(1));
+                        }
+                    }
+                }
+            }
+            if (keys.size() != batchArgs.size()) {
+                throw new DataRetrievalFailureException(
+                    "Expected " + batchArgs.size() + " generated keys but got " + keys.size());
+            }
+            return keys;
+        });
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Base class for {@link RowMapper} implementations that read columns by index instead of by label. The labels passed
+ * to the constructor are resolved to column indexes on the first row, so each instance is bound to the layout of one
+ * query and must not be shared between queries with different select lists.
+ *
+ * @param <T> the mapped type
+ */
+abstract class JdbcColumnIndexRowMapper<T> implements RowMapper<T> {
+
+    private final String[] columnLabels;
+
+    private int[] columns;
+
+    protected JdbcColumnIndexRowMapper(String... columnLabels) {
+        this.columnLabels = columnLabels;
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (this.columns == null) {
+            int[] resolved = new int[this.columnLabels.length];
+            for (int i = 0; i < resolved.length; i++) {
+                resolved[i] = rs.findColumn(this.columnLabels[i]);
+            }
+            this.columns = resolved;
+        }
+        return mapRow(rs, this.columns);
+    }
+
+    /**
+     * Map the current row.
+     *
+     * @param rs      the result set, positioned on the row to map
+     * @param columns the indexes of the constructor's column labels, in the same order
+     */
+    protected abstract T mapRow(ResultSet rs, int[] columns) throws SQLException;
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs the independent sub-queries of a composite JDBC read concurrently, each on a connection of its own, so that
+ * the latency of a lookup is that of its slowest query rather than the sum of all of them.
+ * <p>
+ * Disabled unless {@value #MAX_CONNECTIONS_PROPERTY} is positive. That many pool threads run forked queries, and a
+ * semaphore with as many permits bounds the connections they hold at once; when no permit is free, a query runs on
+ * the calling thread instead, so the setting must stay below the size of the connection pool and the pool can never
+ * be exhausted by forked queries alone.
+ * <p>
+ * Fan-out is only {@link #isActive() active} for callers outside of any actual transaction, read-only ones included:
+ * forked queries would not take part in the caller's transaction, and a caller holding a transactional connection
+ * while it waits for forked queries could starve the pool. Service methods meant to fan out therefore only join
+ * existing transactions. Forked queries always read from the primary, since the read-only flag of the caller does not
+ * reach the pool threads. A forked query that has not finished after {@value #TIMEOUT_PROPERTY} (10 seconds by
+ * default) is cancelled.
+ */
+@Component
+@Profile("jdbc")
+class JdbcFanOut implements Closeable {
+
+    static final String MAX_CONNECTIONS_PROPERTY = "petclinic.jdbc.fan-out.max-connections";
+
+    static final String TIMEOUT_PROPERTY = "petclinic.jdbc.fan-out.timeout";
+
+    private final Semaphore permits;
+
+    private final long timeoutNanos;
+
+    private final ExecutorService executor;
+
+    JdbcFanOut(@Value("${" + MAX_CONNECTIONS_PROPERTY + ":0}") int maxConnections,
+               @Value("${" + TIMEOUT_PROPERTY + ":10s}") Duration timeout) {
+        this.timeoutNanos = timeout.toNanos();
+        if (maxConnections > 0) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.permits = new Semaphore(maxConnections);
+            this.executor = new ThreadPoolExecutor(maxConnections, maxConnections, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "jdbc-fan-out-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            ((ThreadPoolExecutor) this.executor).allowCoreThreadTimeOut(true);
+        } else {
+            this.permits = null;
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Whether queries should be forked: fan-out is enabled and the caller is outside of any actual transaction. A
+     * caller that forks all of its queries then holds no connection while it waits for them, even within the
+     * transaction synchronization of a {@link org.springframework.transaction.annotation.Propagation#SUPPORTS}
+     * method.
+     */
+    boolean isActive() {
+        return this.executor != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Start the given query on a pool thread if a connection permit is free, otherwise run it right away on the
+     * calling thread.
+     *
+     * @return a supplier waiting for and returning the query result, rethrowing the exception the query failed with,
+     * or throwing a {@link QueryTimeoutException} once the timeout has elapsed
+     */
+    <T> Supplier<T> fork(Supplier<T> query) {
+        if (!isActive() || !this.permits.tryAcquire()) {
+            T result = query.get();
+            return () -> result;
+        }
+        Future<T> future;
+        try {
+            future = this.executor.submit(() -> {
+                try {
+                    return query.get();
+                } finally {
+                    this.permits.release();
+                }
+            });
+        } catch (RuntimeException ex) {
+            this.permits.release();
+            throw ex;
+        }
+        return () -> join(future);
+    }
+
+    private <T> T join(Future<T> future) {
+        try {
+            return future.get(this.timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw new QueryTimeoutException(
+                "Forked query did not finish within " + Duration.ofNanos(this.timeoutNanos), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new TransientDataAccessResourceException("Interrupted while waiting for a forked query", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.util.EntityIndex;
+
+/**
+ * Loads the {@link Visit Visits} of a group of {@link JdbcPet JdbcPets} the first time the visits of any of them
+ * are accessed, with one <code>IN (...)</code> query per {@link #PET_ID_BATCH_SIZE} pets.
+ * <p>
+ * Repositories create one instance per result set and {@link #register} every pet read with it, so touching the
+ * visits of one pet loads the visits of its whole result set. The visits are read with a connection of their own if
+ * the transaction the pets were read in has already ended.
+ */
+final class JdbcLazyVisits {
+
+    private static final int PET_ID_BATCH_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final List<JdbcPet> pets = new ArrayList<>();
+
+    JdbcLazyVisits(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /**
+     * Register the given pets, whose visits have not been read, to be loaded on first access.
+     */
+    void register(Collection<JdbcPet> pets) {
+        for (JdbcPet pet : pets) {
+            this.pets.add(pet);
+            pet.setLazyVisits(this);
+        }
+    }
+
+    /**
+     * Load the visits of all registered pets that do not have them yet.
+     */
+    synchronized void load() {
+        List<JdbcPet> pending = new ArrayList<>();
+        for (JdbcPet pet : this.pets) {
+            if (pet.getLazyVisits() == this) {
+                pending.add(pet);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        EntityIndex<JdbcPet> pendingById = EntityIndex.of(pending, JdbcPet.class);
+        List<Integer> petIds = new ArrayList<>(pending.size());
+        for (JdbcPet pet : pending) {
+            petIds.add(pet.getId());
+        }
+        List<Visit> visits = new ArrayList<>();
+        List<Integer> visitPetIds = new ArrayList<>();
+        JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+        for (int from = 0; from < petIds.size(); from += PET_ID_BATCH_SIZE) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", petIds.subList(from, Math.min(from + PET_ID_BATCH_SIZE, petIds.size())));
+            this.namedParameterJdbcTemplate.query(
+                "SELECT id as visit_id, visit_date, description, pet_id FROM visits WHERE pet_id IN (:ids)",
+                params,
+                (RowCallbackHandler) rs -> {
+                    visits.add(visitRowMapper.mapRow(rs, rs.getRow()));
+                    visitPetIds.add(rs.getInt("pet_id"));
+                });
+        }
+        // detach only once everything is read, so a failed load is retried on the next access
+        for (JdbcPet pet : pending) {
+            pet.setLazyVisits(null);
+        }
+        this.pets.clear();
+        for (int i = 0; i < visits.size(); i++) {
+            pendingById.getById(visitPetIds.get(i)).addVisit(visits.get(i));
+        }
+    }
+
+}
@@ -15,29 +15,40 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
-import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.projection.OwnerPetSummary;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.VisitSummary;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -56,12 +67,30 @@ import org.springframework.stereotype.Repository;
 @Profile("jdbc")
 public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
+    /**
+     * Maximum number of owner ids bound into a single <code>IN (...)</code> list when loading pets and visits.
+     */
+    private static final int OWNER_ID_BATCH_SIZE = 1000;
+
+    private static final String UPDATE_OWNER = "UPDATE owners SET first_name=:firstName, last_name=:lastName, " +
+        "address=:address, city=:city, telephone=:telephone WHERE id=:id";
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    private NamedParameterJdbcTemplate streamJdbcTemplate;
+
     private SimpleJdbcInsert insertOwner;
 
+    private JdbcPetCascadeDelete petCascadeDelete;
+
+    private JdbcReferenceData referenceData;
+
+    private JdbcFanOut fanOut;
+
     @Autowired
-    public JdbcOwnerRepositoryImpl(DataSource dataSource) {
+    public JdbcOwnerRepositoryImpl(DataSource dataSource, JdbcReferenceData referenceData, JdbcFanOut fanOut,
+            @Value("${" + JdbcPetCascadeDelete.CHUNK_SIZE_PROPERTY + ":0}") int deleteChunkSize,
+            @Value("${petclinic.stream.fetch-size:1000}") int streamFetchSize) {
 
         this.insertOwner = new SimpleJdbcInsert(dataSource)
             .withTableName("owners")
@@ -69,6 +98,13 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
+        this.streamJdbcTemplate = JdbcStreams.streamingTemplate(dataSource, streamFetchSize);
+
+        this.petCascadeDelete = new JdbcPetCascadeDelete(dataSource, deleteChunkSize);
+
+        this.referenceData = referenceData;
+
+        this.fanOut = fanOut;
     }
 
 
@@ -84,18 +120,51 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         List<Owner> owners = this.namedParameterJdbcTemplate.query(
             "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE last_name like :lastName",
             params,
-            BeanPropertyRowMapper.newInstance(Owner.class)
+            new JdbcOwnerRowMapper()
         );
         loadOwnersPetsAndVisits(owners);
         return owners;
     }
 
+    @Override
+    public Map<Integer, String> findAllLastNames() throws DataAccessException {
+        Map<Integer, String> lastNames = new HashMap<>();
+        this.namedParameterJdbcTemplate.query(
+            "SELECT id, last_name FROM owners",
+            new HashMap<String, Object>(),
+            (RowCallbackHandler) rs -> lastNames.put(rs.getInt(1), rs.getString(2)));
+        return lastNames;
+    }
+
+    /**
+     * Loads the {@link Owner Owners} with the supplied ids in batches of {@link #OWNER_ID_BATCH_SIZE}; also loads their
+     * {@link Pet Pets} and {@link Visit Visits}.
+     */
+    @Override
+    public Collection<Owner> findByIds(Collection<Integer> ids) throws DataAccessException {
+        List<Integer> ownerIds = new ArrayList<>(ids);
+        List<Owner> owners = new ArrayList<>(ownerIds.size());
+        for (int from = 0; from < ownerIds.size(); from += OWNER_ID_BATCH_SIZE) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", ownerIds.subList(from, Math.min(from + OWNER_ID_BATCH_SIZE, ownerIds.size())));
+            owners.addAll(this.namedParameterJdbcTemplate.query(
+                "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id IN (:ids)",
+                params,
+                new JdbcOwnerRowMapper()));
+        }
+        loadOwnersPetsAndVisits(owners);
+        return owners;
+    }
+
     /**
      * Loads the {@link Owner} with the supplied <code>id</code>; also loads the {@link Pet Pets} and {@link Visit Visits}
      * for the corresponding owner, if not already loaded.
      */
     @Override
     public Owner findById(int id) throws DataAccessException {
+        if (this.fanOut.isActive()) {
+            return findByIdFannedOut(id);
+        }
         Owner owner;
         try {
             Map<String, Object> params = new HashMap<>();
@@ -103,7 +172,7 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
             owner = this.namedParameterJdbcTemplate.queryForObject(
                 "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :id",
                 params,
-                BeanPropertyRowMapper.newInstance(Owner.class)
+                new JdbcOwnerRowMapper()
             );
         } catch (EmptyResultDataAccessException ex) {
             throw new ObjectRetrievalFailureException(Owner.class, id);
@@ -112,19 +181,52 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
         return owner;
     }
 
-    public void loadPetsAndVisits(final Owner owner) {
+    /**
+     * Loads the {@link Owner} with the supplied <code>id</code> with its {@link Pet Pets} and their
+     * {@link Visit Visits}, reading the owner row, the pets and the visits concurrently through {@link JdbcFanOut}.
+     */
+    private Owner findByIdFannedOut(int id) {
         Map<String, Object> params = new HashMap<>();
-        params.put("id", owner.getId());
-        final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
-            "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description, visits.pet_id as visits_pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = visits.pet_id WHERE owner_id=:id ORDER BY pets.id",
+        params.put("id", id);
+        Supplier<List<JdbcPet>> pets = this.fanOut.fork(() -> this.namedParameterJdbcTemplate.query(
+            "SELECT id as pets_id, name, birth_date, type_id, owner_id FROM pets WHERE owner_id=:id ORDER BY id",
             params,
-            new JdbcPetVisitExtractor()
-        );
-        Collection<PetType> petTypes = getPetTypes();
-        for (JdbcPet pet : pets) {
-            pet.setType(EntityUtils.getById(petTypes, PetType.class, pet.getTypeId()));
+            new JdbcPetRowMapper()));
+        Supplier<Map<Integer, List<Visit>>> visitsByPetId = this.fanOut.fork(() -> this.namedParameterJdbcTemplate.query(
+            "SELECT visits.id as visit_id, visit_date, description, pet_id FROM visits " +
+                "JOIN pets ON visits.pet_id = pets.id WHERE pets.owner_id=:id",
+            params,
+            rs -> {
+                JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+                Map<Integer, List<Visit>> visits = new HashMap<>();
+                while (rs.next()) {
+                    visits.computeIfAbsent(rs.getInt("pet_id"), petId -> new ArrayList<>())
+                        .add(visitRowMapper.mapRow(rs, rs.getRow()));
+                }
+                return visits;
+            }));
+        Supplier<List<Owner>> ownerRows = this.fanOut.fork(() -> this.namedParameterJdbcTemplate.query(
+            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :id",
+            params,
+            new JdbcOwnerRowMapper()));
+        List<Owner> owners = ownerRows.get();
+        if (owners.isEmpty()) {
+            throw new ObjectRetrievalFailureException(Owner.class, id);
+        }
+        Owner owner = owners.get(0);
+        Map<Integer, List<Visit>> visits = visitsByPetId.get();
+        for (JdbcPet pet : pets.get()) {
+            pet.setType(this.referenceData.getPetType(pet.getTypeId()));
+            for (Visit visit : visits.getOrDefault(pet.getId(), Collections.emptyList())) {
+                pet.addVisit(visit);
+            }
             owner.addPet(pet);
         }
+        return owner;
+    }
+
+    public void loadPetsAndVisits(final Owner owner) {
+        loadOwnersPetsAndVisits(Collections.singletonList(owner));
     }
 
     @Override
@@ -135,27 +237,45 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
             owner.setId(newKey.intValue());
         } else {
             this.namedParameterJdbcTemplate.update(
-                "UPDATE owners SET first_name=:firstName, last_name=:lastName, address=:address, " +
-                    "city=:city, telephone=:telephone WHERE id=:id",
+                UPDATE_OWNER,
                 parameterSource);
         }
     }
 
-    public Collection<PetType> getPetTypes() throws DataAccessException {
-        return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM types ORDER BY name", new HashMap<String, Object>(),
-            BeanPropertyRowMapper.newInstance(PetType.class));
-    }
-
     /**
-     * Loads the {@link Pet} and {@link Visit} data for the supplied {@link List} of {@link Owner Owners}.
+     * Loads the {@link Pet} data for the supplied {@link List} of {@link Owner Owners}; the {@link Visit Visits} of
+     * the pets are loaded lazily, for all of the pets at once, when the visits of any of them are first accessed.
+     * <p>
+     * Pets are fetched with one query per batch of {@link #OWNER_ID_BATCH_SIZE} owner ids and attached through an
+     * id-keyed map, so the number of statements does not grow with the number of owners; pet types come from the
+     * {@link JdbcReferenceData} snapshot.
      *
      * @param owners the list of owners for whom the pet and visit data should be loaded
-     * @see #loadPetsAndVisits(Owner)
      */
     private void loadOwnersPetsAndVisits(List<Owner> owners) {
+        if (owners.isEmpty()) {
+            return;
+        }
+        EntityIndex<Owner> ownersById = EntityIndex.of(owners, Owner.class);
+        JdbcLazyVisits lazyVisits = new JdbcLazyVisits(this.namedParameterJdbcTemplate);
+        List<Integer> ownerIds = new ArrayList<>(owners.size());
         for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
+            ownerIds.add(owner.getId());
+        }
+        for (int from = 0; from < ownerIds.size(); from += OWNER_ID_BATCH_SIZE) {
+            List<Integer> batch = ownerIds.subList(from, Math.min(from + OWNER_ID_BATCH_SIZE, ownerIds.size()));
+            Map<String, Object> params = new HashMap<>();
+            params.put("ids", batch);
+            List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
+                "SELECT id as pets_id, name, birth_date, type_id, owner_id FROM pets WHERE owner_id IN (:ids) ORDER BY id",
+                params,
+                new JdbcPetRowMapper()
+            );
+            lazyVisits.register(pets);
+            for (JdbcPet pet : pets) {
+                pet.setType(this.referenceData.getPetType(pet.getTypeId()));
+                ownersById.getById(pet.getOwnerId()).addPet(pet);
+            }
         }
     }
     
@@ -164,34 +284,197 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 		List<Owner> owners = this.namedParameterJdbcTemplate.query(
 	            "SELECT id, first_name, last_name, address, city, telephone FROM owners",
 	            new HashMap<String, Object>(),
-	            BeanPropertyRowMapper.newInstance(Owner.class));
-		for (Owner owner : owners) {
-            loadPetsAndVisits(owner);
-        }
+	            new JdbcOwnerRowMapper());
+		loadOwnersPetsAndVisits(owners);
 	    return owners;
 	}
 
+	/**
+	 * Loads a page of {@link Owner Owners} by id; also loads the {@link Pet Pets} and {@link Visit Visits} of the
+	 * owners on the page.
+	 */
+	@Override
+	public Collection<Owner> findPage(int afterId, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("afterId", afterId);
+		params.put("limit", limit);
+		List<Owner> owners = this.namedParameterJdbcTemplate.query(
+			"SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id > :afterId ORDER BY id LIMIT :limit",
+			params,
+			new JdbcOwnerRowMapper());
+		loadOwnersPetsAndVisits(owners);
+		return owners;
+	}
+
+	/**
+	 * Reads the summaries of all owners from one owners-pets join ordered by owner, assembling each owner from
+	 * consecutive rows; the visits are read with a second query.
+	 */
+	@Override
+	public Collection<OwnerSummary> findAllSummaries() throws DataAccessException {
+		Map<Integer, List<VisitSummary>> visitsByPetId =
+			JdbcProjections.findVisitSummariesByPetId(this.namedParameterJdbcTemplate);
+		JdbcProjections projections = new JdbcProjections(this.referenceData);
+		return this.namedParameterJdbcTemplate.query(
+			"SELECT owners.id, first_name, last_name, address, city, telephone, pets.id, pets.name, birth_date, type_id " +
+				"FROM owners LEFT OUTER JOIN pets ON owners.id = pets.owner_id ORDER BY owners.id",
+			new HashMap<String, Object>(),
+			rs -> {
+				List<OwnerSummary> owners = new ArrayList<>();
+				List<OwnerPetSummary> pets = new ArrayList<>();
+				boolean more = rs.next();
+				while (more) {
+					int ownerId = rs.getInt(1);
+					String firstName = rs.getString(2);
+					String lastName = rs.getString(3);
+					String address = rs.getString(4);
+					String city = rs.getString(5);
+					String telephone = rs.getString(6);
+					do {
+						int petId = rs.getInt(7);
+						if (!rs.wasNull()) {
+							pets.add(new OwnerPetSummary(petId, rs.getString(8), rs.getDate(9),
+								projections.petType(rs, 10), ownerId,
+								visitsByPetId.getOrDefault(petId, Collections.emptyList())));
+						}
+						more = rs.next();
+					} while (more && rs.getInt(1) == ownerId);
+					owners.add(new OwnerSummary(ownerId, firstName, lastName, address, city, telephone, pets));
+					pets.clear();
+				}
+				return owners;
+			});
+	}
+
+	/**
+	 * Streams all {@link Owner Owners} with their {@link Pet Pets} and {@link Visit Visits} from one owners-pets-visits
+	 * join ordered by owner and pet, so that each owner is assembled from consecutive rows and only the current owner
+	 * is held in memory.
+	 */
+	@Override
+	public Stream<Owner> streamAll() throws DataAccessException {
+		Stream<Owner> rows = this.streamJdbcTemplate.queryForStream(
+			"SELECT owners.id as owners_id, first_name, last_name, address, city, telephone, pets.id as pets_id, " +
+				"pets.name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description " +
+				"FROM owners LEFT OUTER JOIN pets ON owners.id = pets.owner_id " +
+				"LEFT OUTER JOIN visits ON pets.id = visits.pet_id ORDER BY owners.id, pets.id",
+			new HashMap<String, Object>(),
+			new OwnerPetVisitRowMapper(this.referenceData));
+		return JdbcStreams.collapseRuns(rows);
+	}
+
+	/**
+	 * Deletes the {@link Owner} with all of its {@link Pet Pets} and their {@link Visit Visits} using set-based
+	 * statements.
+	 */
 	@Override
 	@Transactional
 	public void delete(Owner owner) throws DataAccessException {
 		Map<String, Object> owner_params = new HashMap<>();
 		owner_params.put("id", owner.getId());
-        List<Pet> pets = owner.getPets();
-        // cascade delete pets
-        for (Pet pet : pets){
-        	Map<String, Object> pet_params = new HashMap<>();
-        	pet_params.put("id", pet.getId());
-        	// cascade delete visits
-        	List<Visit> visits = pet.getVisits();
-            for (Visit visit : visits){
-            	Map<String, Object> visit_params = new HashMap<>();
-            	visit_params.put("id", visit.getId());
-            	this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-            }
-            this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
-        }
-        this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id=:id", owner_params);
+		this.petCascadeDelete.deletePetsOfOwner(owner.getId());
+		this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id=:id", owner_params);
 	}
 
+	/**
+	 * Inserts the new {@link Owner Owners} in JDBC batches, collecting their generated ids, and updates the others
+	 * with a single batch update. As with {@link #save}, their pets are not saved.
+	 */
+	@Override
+	public void saveAll(Collection<Owner> owners) throws DataAccessException {
+		List<Owner> newOwners = new ArrayList<>();
+		List<Object[]> inserts = new ArrayList<>();
+		List<SqlParameterSource> updates = new ArrayList<>();
+		for (Owner owner : owners) {
+			if (owner.isNew()) {
+				newOwners.add(owner);
+				inserts.add(new Object[] {owner.getFirstName(), owner.getLastName(), owner.getAddress(), owner.getCity(),
+					owner.getTelephone()});
+			} else {
+				updates.add(new BeanPropertySqlParameterSource(owner));
+			}
+		}
+		if (!newOwners.isEmpty()) {
+			List<Integer> ids = JdbcBatchInsert.executeAndReturnKeys(this.namedParameterJdbcTemplate.getJdbcOperations(),
+				"INSERT INTO owners (first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?)", inserts);
+			for (int i = 0; i < newOwners.size(); i++) {
+				newOwners.get(i).setId(ids.get(i));
+			}
+		}
+		if (!updates.isEmpty()) {
+			this.namedParameterJdbcTemplate.batchUpdate(UPDATE_OWNER, updates.toArray(new SqlParameterSource[0]));
+		}
+	}
+
+	/**
+	 * Deletes the {@link Owner Owners} with all of their {@link Pet Pets} and the pets' {@link Visit Visits} using
+	 * set-based statements per batch of {@link #OWNER_ID_BATCH_SIZE} owner ids.
+	 */
+	@Override
+	@Transactional
+	public void deleteAll(Collection<Owner> owners) throws DataAccessException {
+		List<Integer> ownerIds = new ArrayList<>(owners.size());
+		for (Owner owner : owners) {
+			ownerIds.add(owner.getId());
+		}
+		for (int from = 0; from < ownerIds.size(); from += OWNER_ID_BATCH_SIZE) {
+			List<Integer> batch = ownerIds.subList(from, Math.min(from + OWNER_ID_BATCH_SIZE, ownerIds.size()));
+			Map<String, Object> params = new HashMap<>();
+			params.put("ids", batch);
+			this.petCascadeDelete.deletePetsOfOwners(batch);
+			this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id IN (:ids)", params);
+		}
+	}
+
+	/**
+	 * {@link RowMapper} for the rows of {@link #streamAll}: returns the owner of the previous row, extended by the
+	 * row's pet and visit, as long as the owner id does not change.
+	 */
+	private static class OwnerPetVisitRowMapper implements RowMapper<Owner> {
+
+		private final JdbcOwnerRowMapper ownerRowMapper = new JdbcOwnerRowMapper("owners_id");
+
+		private final JdbcPetRowMapper petRowMapper = new JdbcPetRowMapper();
+
+		private final JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+
+		private final JdbcReferenceData referenceData;
+
+		private Owner owner;
+
+		private JdbcPet pet;
+
+		private int[] idColumns;
+
+		OwnerPetVisitRowMapper(JdbcReferenceData referenceData) {
+			this.referenceData = referenceData;
+		}
+
+		@Override
+		public Owner mapRow(ResultSet rs, int rowNum) throws SQLException {
+			if (this.idColumns == null) {
+				this.idColumns = new int[] {rs.findColumn("owners_id"), rs.findColumn("pets_id"), rs.findColumn("visit_id")};
+			}
+			int ownerId = rs.getInt(this.idColumns[0]);
+			if (this.owner == null || this.owner.getId() != ownerId) {
+				this.owner = this.ownerRowMapper.mapRow(rs, rowNum);
+				this.pet = null;
+			}
+			int petId = rs.getInt(this.idColumns[1]);
+			if (rs.wasNull()) {
+				return this.owner;
+			}
+			if (this.pet == null || this.pet.getId() != petId) {
+				this.pet = this.petRowMapper.mapRow(rs, rowNum);
+				this.pet.setType(this.referenceData.getPetType(this.pet.getTypeId()));
+				this.owner.addPet(this.pet);
+			}
+			rs.getInt(this.idColumns[2]);
+			if (!rs.wasNull()) {
+				this.pet.addVisit(this.visitRowMapper.mapRow(rs, rowNum));
+			}
+			return this.owner;
+		}
+	}
 
 }
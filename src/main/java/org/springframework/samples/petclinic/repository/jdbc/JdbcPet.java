@@ -15,11 +15,14 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.util.Set;
+
 import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
 
 /**
  * Subclass of Pet that carries temporary id properties which are only relevant for a JDBC implementation of the
- * PetRepository.
+ * PetRepository, and whose visits can be loaded lazily through a {@link JdbcLazyVisits}.
  *
  * @author Juergen Hoeller
  */
@@ -29,6 +32,8 @@ public class JdbcPet extends Pet {
 
     private int ownerId;
 
+    private JdbcLazyVisits lazyVisits;
+
     public int getTypeId() {
         return this.typeId;
     }
@@ -45,4 +50,21 @@ public class JdbcPet extends Pet {
         this.ownerId = ownerId;
     }
 
+    JdbcLazyVisits getLazyVisits() {
+        return this.lazyVisits;
+    }
+
+    void setLazyVisits(JdbcLazyVisits lazyVisits) {
+        this.lazyVisits = lazyVisits;
+    }
+
+    @Override
+    protected Set<Visit> getVisitsInternal() {
+        JdbcLazyVisits lazyVisits = this.lazyVisits;
+        if (lazyVisits != null) {
+            lazyVisits.load();
+        }
+        return super.getVisitsInternal();
+    }
+
 }
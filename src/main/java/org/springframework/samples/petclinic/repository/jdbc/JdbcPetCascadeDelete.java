@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Deletes all pets referencing a given owner or pet type, together with their visits, using a fixed number of
+ * set-based statements instead of one statement per pet and visit.
+ * <p>
+ * With a positive chunk size the pets are deleted in chunks of at most that many pets, so that no single statement
+ * touches an unbounded number of rows; with a chunk size of 0 two statements delete everything at once.
+ */
+class JdbcPetCascadeDelete {
+
+    /**
+     * Name of the property holding the chunk size used by the JDBC repositories.
+     */
+    static final String CHUNK_SIZE_PROPERTY = "petclinic.jdbc.delete-chunk-size";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final NamedParameterJdbcTemplate chunkJdbcTemplate;
+
+    private final int chunkSize;
+
+    JdbcPetCascadeDelete(DataSource dataSource, int chunkSize) {
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate chunkTemplate = new JdbcTemplate(dataSource);
+        chunkTemplate.setMaxRows(Math.max(chunkSize, 0));
+        this.chunkJdbcTemplate = new NamedParameterJdbcTemplate(chunkTemplate);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Delete the pets with the given owner and their visits.
+     */
+    void deletePetsOfOwner(int ownerId) throws DataAccessException {
+        deletePetsOfOwners(Collections.singletonList(ownerId));
+    }
+
+    /**
+     * Delete the pets of all given owners and their visits.
+     */
+    void deletePetsOfOwners(Collection<Integer> ownerIds) throws DataAccessException {
+        deletePets("owner_id", ownerIds);
+    }
+
+    /**
+     * Delete the pets of the given type and their visits.
+     */
+    void deletePetsOfType(int typeId) throws DataAccessException {
+        deletePets("type_id", Collections.singletonList(typeId));
+    }
+
+    private void deletePets(String column, Collection<Integer> ids) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", ids);
+        if (this.chunkSize <= 0) {
+            this.namedParameterJdbcTemplate.update(
+                "DELETE FROM visits WHERE pet_id IN (SELECT id FROM pets WHERE " + column + " IN (:id))", params);
+            this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE " + column + " IN (:id)", params);
+            return;
+        }
+        List<Integer> petIds;
+        do {
+            petIds = this.chunkJdbcTemplate.queryForList(
+                "SELECT id FROM pets WHERE " + column + " IN (:id) ORDER BY id", params, Integer.class);
+            if (!petIds.isEmpty()) {
+                Map<String, Object> chunkParams = new HashMap<>();
+                chunkParams.put("ids", petIds);
+                this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE pet_id IN (:ids)", chunkParams);
+                this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id IN (:ids)", chunkParams);
+            }
+        } while (petIds.size() == this.chunkSize);
+    }
+
+}
@@ -17,6 +17,7 @@ package org.springframework.samples.petclinic.repository.jdbc;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,19 +28,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
-import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
+import org.springframework.samples.petclinic.model.projection.VisitSummary;
 import org.springframework.samples.petclinic.repository.PetRepository;
-import org.springframework.samples.petclinic.repository.VisitRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -55,50 +58,78 @@ import org.springframework.stereotype.Repository;
 @Profile("jdbc")
 public class JdbcPetRepositoryImpl implements PetRepository {
 
-    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private static final String INSERT_PET = "INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?)";
 
-    private SimpleJdbcInsert insertPet;
+    private static final String UPDATE_PET =
+        "UPDATE pets SET name=:name, birth_date=:birth_date, type_id=:type_id, owner_id=:owner_id WHERE id=:id";
+
+    /**
+     * Maximum number of pet ids bound into a single <code>IN (...)</code> list.
+     */
+    private static final int PET_ID_BATCH_SIZE = 1000;
 
-    private OwnerRepository ownerRepository;
+    /**
+     * Selects pets together with their owner in a single join; pet types are resolved through the
+     * {@link JdbcReferenceData} snapshot.
+     */
+    private static final String PET_OWNER_SELECT =
+        "SELECT pets.id as pets_id, pets.name, birth_date, type_id, owner_id, " +
+            "first_name, last_name, address, city, telephone FROM pets JOIN owners ON pets.owner_id = owners.id";
 
-    private VisitRepository visitRepository;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private SimpleJdbcInsert insertPet;
 
+    private JdbcReferenceData referenceData;
 
     @Autowired
-    public JdbcPetRepositoryImpl(DataSource dataSource,
-    		OwnerRepository ownerRepository,
-    		VisitRepository visitRepository) {
+    public JdbcPetRepositoryImpl(DataSource dataSource, JdbcReferenceData referenceData) {
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
         this.insertPet = new SimpleJdbcInsert(dataSource)
             .withTableName("pets")
             .usingGeneratedKeyColumns("id");
 
-        this.ownerRepository = ownerRepository;
-        this.visitRepository = visitRepository;
+        this.referenceData = referenceData;
     }
 
     @Override
     public List<PetType> findPetTypes() throws DataAccessException {
-        Map<String, Object> params = new HashMap<>();
-        return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM types ORDER BY name",
-            params,
-            BeanPropertyRowMapper.newInstance(PetType.class));
+        return JdbcPetTypeRepositoryImpl.copyOf(this.referenceData.get().getPetTypes());
     }
 
+    /**
+     * Loads the {@link Pet} with the supplied <code>id</code> together with its {@link PetType}, its {@link Owner}
+     * (without the owner's other pets) and its {@link Visit Visits}.
+     */
     @Override
     public Pet findById(int id) throws DataAccessException {
-        Integer ownerId;
+        JdbcPet pet;
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        JdbcPetRowMapper petRowMapper = new JdbcPetRowMapper();
+        JdbcOwnerRowMapper ownerRowMapper = new JdbcOwnerRowMapper("owner_id");
         try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            ownerId = this.namedParameterJdbcTemplate.queryForObject("SELECT owner_id FROM pets WHERE id=:id", params, Integer.class);
+            pet = this.namedParameterJdbcTemplate.queryForObject(
+                PET_OWNER_SELECT + " WHERE pets.id=:id",
+                params,
+                (rs, rowNum) -> {
+                    JdbcPet jdbcPet = petRowMapper.mapRow(rs, rowNum);
+                    jdbcPet.setType(this.referenceData.getPetType(jdbcPet.getTypeId()));
+                    jdbcPet.setOwner(ownerRowMapper.mapRow(rs, rowNum));
+                    return jdbcPet;
+                });
         } catch (EmptyResultDataAccessException ex) {
             throw new ObjectRetrievalFailureException(Pet.class, id);
         }
-        Owner owner = this.ownerRepository.findById(ownerId);
-        return EntityUtils.getById(owner.getPets(), Pet.class, id);
+        List<Visit> visits = this.namedParameterJdbcTemplate.query(
+            "SELECT id as visit_id, visit_date, description FROM visits WHERE pet_id=:id",
+            params,
+            new JdbcVisitRowMapper());
+        for (Visit visit : visits) {
+            pet.addVisit(visit);
+        }
+        return pet;
     }
 
     @Override
@@ -109,8 +140,7 @@ public class JdbcPetRepositoryImpl implements PetRepository {
             pet.setId(newKey.intValue());
         } else {
             this.namedParameterJdbcTemplate.update(
-                "UPDATE pets SET name=:name, birth_date=:birth_date, type_id=:type_id, " +
-                    "owner_id=:owner_id WHERE id=:id",
+                UPDATE_PET,
                 createPetParameterSource(pet));
         }
     }
@@ -127,28 +157,121 @@ public class JdbcPetRepositoryImpl implements PetRepository {
             .addValue("owner_id", pet.getOwner().getId());
     }
     
+	/**
+	 * Loads all {@link Pet Pets} with their {@link PetType}, {@link Owner} and {@link Visit Visits}. Owners are read
+	 * once into an {@link EntityIndex id index}, pets are resolved against it and the {@link JdbcReferenceData} pet types
+	 * while streaming the pets table, and visits are attached in a single pass over the visits table.
+	 */
 	@Override
 	public Collection<Pet> findAll() throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
-		Collection<Pet> pets = new ArrayList<Pet>();
-		Collection<JdbcPet> jdbcPets = new ArrayList<JdbcPet>();
-		jdbcPets = this.namedParameterJdbcTemplate
-				.query("SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets",
-				params,
-				new JdbcPetRowMapper());
-		Collection<PetType> petTypes = this.namedParameterJdbcTemplate.query("SELECT id, name FROM types ORDER BY name",
-				new HashMap<String,
-				Object>(), BeanPropertyRowMapper.newInstance(PetType.class));
-		Collection<Owner> owners = this.namedParameterJdbcTemplate.query(
-				"SELECT id, first_name, last_name, address, city, telephone FROM owners ORDER BY last_name",
-				new HashMap<String, Object>(),
-				BeanPropertyRowMapper.newInstance(Owner.class));
-		for (JdbcPet jdbcPet : jdbcPets) {
-			jdbcPet.setType(EntityUtils.getById(petTypes, PetType.class, jdbcPet.getTypeId()));
-			jdbcPet.setOwner(EntityUtils.getById(owners, Owner.class, jdbcPet.getOwnerId()));
-			// TODO add visits
-			pets.add(jdbcPet);
+		EntityIndex<Owner> owners = new EntityIndex<>(Owner.class);
+		JdbcOwnerRowMapper ownerRowMapper = new JdbcOwnerRowMapper();
+		this.namedParameterJdbcTemplate.query(
+			"SELECT id, first_name, last_name, address, city, telephone FROM owners",
+			params,
+			(RowCallbackHandler) rs -> {
+				owners.add(ownerRowMapper.mapRow(rs, 0));
+			});
+		List<Pet> pets = new ArrayList<>();
+		EntityIndex<Pet> petsById = new EntityIndex<>(Pet.class);
+		JdbcPetRowMapper petRowMapper = new JdbcPetRowMapper();
+		this.namedParameterJdbcTemplate.query(
+			"SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets",
+			params,
+			(RowCallbackHandler) rs -> {
+				JdbcPet pet = petRowMapper.mapRow(rs, 0);
+				pet.setType(this.referenceData.getPetType(pet.getTypeId()));
+				pet.setOwner(owners.getById(pet.getOwnerId()));
+				pets.add(pet);
+				petsById.add(pet);
+			});
+		JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+		this.namedParameterJdbcTemplate.query(
+			"SELECT id as visit_id, visit_date, description, pet_id FROM visits",
+			params,
+			(RowCallbackHandler) rs -> {
+				Pet pet = petsById.find(rs.getInt("pet_id"));
+				if (pet != null) {
+					pet.addVisit(visitRowMapper.mapRow(rs, 0));
+				}
+			});
+		return pets;
+	}
+
+	/**
+	 * Reads the summaries of all pets from one pets-owners join, sharing the summary of an owner between its pets;
+	 * the visits are read with a second query.
+	 */
+	@Override
+	public Collection<PetSummary> findAllSummaries() throws DataAccessException {
+		Map<Integer, List<VisitSummary>> visitsByPetId =
+			JdbcProjections.findVisitSummariesByPetId(this.namedParameterJdbcTemplate);
+		JdbcProjections projections = new JdbcProjections(this.referenceData);
+		Map<Integer, OwnerSummary> owners = new HashMap<>();
+		return this.namedParameterJdbcTemplate.query(
+			"SELECT pets.id, pets.name, birth_date, type_id, owners.id, first_name, last_name, address, city, telephone " +
+				"FROM pets LEFT OUTER JOIN owners ON pets.owner_id = owners.id ORDER BY pets.id",
+			new HashMap<String, Object>(),
+			(rs, rowNum) -> {
+				int petId = rs.getInt(1);
+				int ownerId = rs.getInt(5);
+				OwnerSummary owner = null;
+				if (!rs.wasNull()) {
+					owner = owners.get(ownerId);
+					if (owner == null) {
+						owner = new OwnerSummary(ownerId, rs.getString(6), rs.getString(7), rs.getString(8),
+							rs.getString(9), rs.getString(10));
+						owners.put(ownerId, owner);
+					}
+				}
+				return new PetSummary(petId, rs.getString(2), rs.getDate(3), projections.petType(rs, 4), owner,
+					visitsByPetId.getOrDefault(petId, Collections.emptyList()));
+			});
+	}
+
+	/**
+	 * Loads a page of {@link Pet Pets} by id with their {@link PetType}, {@link Owner} (without the owner's other pets)
+	 * and {@link Visit Visits}; owners shared by several pets on the page are shared instances.
+	 */
+	@Override
+	public Collection<Pet> findPage(int afterId, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("afterId", afterId);
+		params.put("limit", limit);
+		JdbcPetRowMapper petRowMapper = new JdbcPetRowMapper();
+		JdbcOwnerRowMapper ownerRowMapper = new JdbcOwnerRowMapper("owner_id");
+		EntityIndex<Owner> owners = new EntityIndex<>(Owner.class);
+		List<Pet> pets = this.namedParameterJdbcTemplate.query(
+			PET_OWNER_SELECT + " WHERE pets.id > :afterId ORDER BY pets.id LIMIT :limit",
+			params,
+			(rs, rowNum) -> {
+				JdbcPet pet = petRowMapper.mapRow(rs, rowNum);
+				pet.setType(this.referenceData.getPetType(pet.getTypeId()));
+				Owner owner = owners.find(pet.getOwnerId());
+				if (owner == null) {
+					owner = ownerRowMapper.mapRow(rs, rowNum);
+					owners.add(owner);
+				}
+				pet.setOwner(owner);
+				return pet;
+			});
+		if (pets.isEmpty()) {
+			return pets;
+		}
+		EntityIndex<Pet> petsById = EntityIndex.of(pets, Pet.class);
+		List<Integer> petIds = new ArrayList<>(pets.size());
+		for (Pet pet : pets) {
+			petIds.add(pet.getId());
 		}
+		params.put("ids", petIds);
+		JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+		this.namedParameterJdbcTemplate.query(
+			"SELECT id as visit_id, visit_date, description, pet_id FROM visits WHERE pet_id IN (:ids)",
+			params,
+			(RowCallbackHandler) rs -> {
+				petsById.getById(rs.getInt("pet_id")).addVisit(visitRowMapper.mapRow(rs, 0));
+			});
 		return pets;
 	}
 
@@ -156,14 +279,56 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 	public void delete(Pet pet) throws DataAccessException {
 		Map<String, Object> pet_params = new HashMap<>();
 		pet_params.put("id", pet.getId());
-		List<Visit> visits = pet.getVisits();
 		// cascade delete visits
-		for (Visit visit : visits) {
-			Map<String, Object> visit_params = new HashMap<>();
-			visit_params.put("id", visit.getId());
-			this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-		}
+		this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE pet_id=:id", pet_params);
 		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
 	}
 
+	/**
+	 * Inserts the new {@link Pet Pets} in JDBC batches, collecting their generated ids, and updates the others with a
+	 * single batch update.
+	 */
+	@Override
+	public void saveAll(Collection<Pet> pets) throws DataAccessException {
+		List<Pet> newPets = new ArrayList<>();
+		List<Object[]> inserts = new ArrayList<>();
+		List<SqlParameterSource> updates = new ArrayList<>();
+		for (Pet pet : pets) {
+			if (pet.isNew()) {
+				newPets.add(pet);
+				inserts.add(new Object[] {pet.getName(), pet.getBirthDate(), pet.getType().getId(), pet.getOwner().getId()});
+			} else {
+				updates.add(createPetParameterSource(pet));
+			}
+		}
+		if (!newPets.isEmpty()) {
+			List<Integer> ids = JdbcBatchInsert.executeAndReturnKeys(
+				this.namedParameterJdbcTemplate.getJdbcOperations(), INSERT_PET, inserts);
+			for (int i = 0; i < newPets.size(); i++) {
+				newPets.get(i).setId(ids.get(i));
+			}
+		}
+		if (!updates.isEmpty()) {
+			this.namedParameterJdbcTemplate.batchUpdate(UPDATE_PET, updates.toArray(new SqlParameterSource[0]));
+		}
+	}
+
+	/**
+	 * Deletes the {@link Pet Pets} and their {@link Visit Visits} with two statements per batch of
+	 * {@link #PET_ID_BATCH_SIZE} pet ids.
+	 */
+	@Override
+	public void deleteAll(Collection<Pet> pets) throws DataAccessException {
+		List<Integer> petIds = new ArrayList<>(pets.size());
+		for (Pet pet : pets) {
+			petIds.add(pet.getId());
+		}
+		for (int from = 0; from < petIds.size(); from += PET_ID_BATCH_SIZE) {
+			Map<String, Object> params = new HashMap<>();
+			params.put("ids", petIds.subList(from, Math.min(from + PET_ID_BATCH_SIZE, petIds.size())));
+			this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE pet_id IN (:ids)", params);
+			this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id IN (:ids)", params);
+		}
+	}
+
 }
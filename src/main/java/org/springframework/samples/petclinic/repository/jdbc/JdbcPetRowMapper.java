@@ -25,17 +25,21 @@ import org.springframework.jdbc.core.RowMapper;
  * {@link RowMapper} implementation mapping data from a {@link ResultSet} to the corresponding properties
  * of the {@link JdbcPet} class.
  */
-public class JdbcPetRowMapper implements RowMapper<JdbcPet> {
+public class JdbcPetRowMapper extends JdbcColumnIndexRowMapper<JdbcPet> {
+
+    public JdbcPetRowMapper() {
+        super("pets_id", "name", "birth_date", "type_id", "owner_id");
+    }
 
     @Override
-    public JdbcPet mapRow(ResultSet rs, int rownum) throws SQLException {
+    protected JdbcPet mapRow(ResultSet rs, int[] columns) throws SQLException {
         JdbcPet pet = new JdbcPet();
-        pet.setId(rs.getInt("pets_id"));
-        pet.setName(rs.getString("name"));
-        Date birthDate = rs.getDate("birth_date");
+        pet.setId(rs.getInt(columns[0]));
+        pet.setName(rs.getString(columns[1]));
+        Date birthDate = rs.getDate(columns[2]);
         pet.setBirthDate(new Date(birthDate.getTime()));
-        pet.setTypeId(rs.getInt("type_id"));
-        pet.setOwnerId(rs.getInt("owner_id"));
+        pet.setTypeId(rs.getInt(columns[3]));
+        pet.setOwnerId(rs.getInt(columns[4]));
         return pet;
     }
 }
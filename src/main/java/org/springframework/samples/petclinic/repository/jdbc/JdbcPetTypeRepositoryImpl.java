@@ -25,14 +25,12 @@ import java.util.Map;
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
@@ -51,38 +49,39 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 	
 	private SimpleJdbcInsert insertPetType;
+
+	private JdbcPetCascadeDelete petCascadeDelete;
+
+	private JdbcReferenceData referenceData;
 	
 	@Autowired
-	public JdbcPetTypeRepositoryImpl(DataSource dataSource) {
+	public JdbcPetTypeRepositoryImpl(DataSource dataSource, JdbcReferenceData referenceData,
+			@Value("${" + JdbcPetCascadeDelete.CHUNK_SIZE_PROPERTY + ":0}") int deleteChunkSize) {
 		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 		this.insertPetType = new SimpleJdbcInsert(dataSource)
 	            .withTableName("types")
 	            .usingGeneratedKeyColumns("id");
+		this.petCascadeDelete = new JdbcPetCascadeDelete(dataSource, deleteChunkSize);
+		this.referenceData = referenceData;
 	}
 
+	/**
+	 * Returns a copy of the pet type held by the {@link JdbcReferenceData} snapshot, so that callers may modify it.
+	 */
 	@Override
 	public PetType findById(int id) {
-		PetType petType;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            petType = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM types WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(PetType.class));
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(PetType.class, id);
-        }
-        return petType;
+		return copyOf(this.referenceData.getPetType(id));
+	}
+
+	@Override
+	public PetType findByName(String name) throws DataAccessException {
+		PetType petType = this.referenceData.findPetTypeByName(name);
+		return petType != null ? copyOf(petType) : null;
 	}
 
 	@Override
 	public Collection<PetType> findAll() throws DataAccessException {
-		Map<String, Object> params = new HashMap<>();
-        return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM types",
-            params,
-            BeanPropertyRowMapper.newInstance(PetType.class));
+		return copyOf(this.referenceData.get().getPetTypes());
 	}
 
 	@Override
@@ -95,35 +94,35 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
             this.namedParameterJdbcTemplate.update("UPDATE types SET name=:name WHERE id=:id",
                 parameterSource);
         }
+		this.referenceData.refresh();
 	}
 
+	/**
+	 * Deletes the {@link PetType} with all {@link Pet Pets} of that type and their {@link Visit Visits} using
+	 * set-based statements.
+	 */
 	@Override
 	public void delete(PetType petType) throws DataAccessException {
 		Map<String, Object> pettype_params = new HashMap<>();
 		pettype_params.put("id", petType.getId());
-		List<Pet> pets = new ArrayList<Pet>();
-		pets = this.namedParameterJdbcTemplate.
-    			query("SELECT pets.id, name, birth_date, type_id, owner_id FROM pets WHERE type_id=:id",
-    			pettype_params,
-    			BeanPropertyRowMapper.newInstance(Pet.class));
-		// cascade delete pets
-		for (Pet pet : pets){
-			Map<String, Object> pet_params = new HashMap<>();
-			pet_params.put("id", pet.getId());
-			List<Visit> visits = new ArrayList<Visit>();
-			visits = this.namedParameterJdbcTemplate.query(
-		            "SELECT id, pet_id, visit_date, description FROM visits WHERE pet_id = :id",
-		            pet_params,
-		            BeanPropertyRowMapper.newInstance(Visit.class));
-	        // cascade delete visits
-	        for (Visit visit : visits){
-	        	Map<String, Object> visit_params = new HashMap<>();
-	        	visit_params.put("id", visit.getId());
-	        	this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
-	        }
-	        this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
-        }
-        this.namedParameterJdbcTemplate.update("DELETE FROM types WHERE id=:id", pettype_params);
+		this.petCascadeDelete.deletePetsOfType(petType.getId());
+		this.namedParameterJdbcTemplate.update("DELETE FROM types WHERE id=:id", pettype_params);
+		this.referenceData.refresh();
+	}
+
+	static PetType copyOf(PetType petType) {
+		PetType copy = new PetType();
+		copy.setId(petType.getId());
+		copy.setName(petType.getName());
+		return copy;
+	}
+
+	static List<PetType> copyOf(Collection<PetType> petTypes) {
+		List<PetType> copies = new ArrayList<>(petTypes.size());
+		for (PetType petType : petTypes) {
+			copies.add(copyOf(petType));
+		}
+		return copies;
 	}
 
 }
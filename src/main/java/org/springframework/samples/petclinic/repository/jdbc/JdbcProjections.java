@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.projection.PetTypeSummary;
+import org.springframework.samples.petclinic.model.projection.VisitSummary;
+
+/**
+ * Shared parts of the summary listings of the JDBC repositories: each listing reads all visits with one query and
+ * its summarized rows with one join, and resolves pet types through the {@link JdbcReferenceData} snapshot.
+ */
+final class JdbcProjections {
+
+    private final JdbcReferenceData referenceData;
+
+    private final Map<Integer, PetTypeSummary> petTypes = new HashMap<>();
+
+    /**
+     * Create the helper for one listing; the summaries of pet types are shared within the listing.
+     */
+    JdbcProjections(JdbcReferenceData referenceData) {
+        this.referenceData = referenceData;
+    }
+
+    /**
+     * @return the summaries of all visits, keyed by pet id
+     */
+    static Map<Integer, List<VisitSummary>> findVisitSummariesByPetId(NamedParameterJdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.query(
+            "SELECT id, visit_date, description, pet_id FROM visits",
+            new HashMap<String, Object>(),
+            rs -> {
+                Map<Integer, List<VisitSummary>> visits = new HashMap<>();
+                while (rs.next()) {
+                    VisitSummary visit = new VisitSummary(rs.getInt(1), rs.getDate(2), rs.getString(3), rs.getInt(4));
+                    visits.computeIfAbsent(visit.getPetId(), petId -> new ArrayList<>()).add(visit);
+                }
+                return visits;
+            });
+    }
+
+    /**
+     * @return the summary of the pet type whose id is in the given column of the current row
+     */
+    PetTypeSummary petType(ResultSet rs, int column) throws SQLException {
+        return this.petTypes.computeIfAbsent(rs.getInt(column), typeId -> {
+            PetType petType = this.referenceData.getPetType(typeId);
+            return new PetTypeSummary(petType.getId(), petType.getName());
+        });
+    }
+
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.NamedEntity;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.util.EntityIndex;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the {@link PetType PetTypes} and {@link Specialty Specialties} of the JDBC repositories in an immutable,
+ * versioned {@link Snapshot} indexed by id and by name, so that pets, visits and vets are resolved against it instead of re-reading or joining the types
+ * and specialties tables.
+ * <p>
+ * Readers get the current snapshot without locking. The pet type and specialty repositories call {@link #refresh}
+ * after every write, which reads both tables within the writing transaction into a snapshot used by that transaction
+ * alone. Once it commits, the shared snapshot is dropped and read again on next use; if it rolls back, nothing
+ * changes.
+ * <p>
+ * An id or name missing from the snapshot, for example because another application instance created it, makes the
+ * snapshot be read again once, unless it was read less than a second ago; if the id is still missing, the lookup
+ * fails, and if the name is still missing, it returns <code>null</code>.
+ * <p>
+ * The entities in a snapshot are shared by everything read through it and cannot be modified; the pet type and
+ * specialty repositories hand out copies.
+ */
+@Component
+@Profile("jdbc")
+class JdbcReferenceData {
+
+    private static final long MIN_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    JdbcReferenceData(DataSource dataSource) {
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Return the snapshot of the current transaction if it has written pet types or specialties, and otherwise the
+     * shared snapshot, reading it if there is none yet.
+     */
+    Snapshot get() {
+        PendingRefresh pending = pendingRefresh();
+        if (pending != null) {
+            return pending.snapshot;
+        }
+        Snapshot current = this.snapshot;
+        return current != null ? current : load(null);
+    }
+
+    /**
+     * Look up a pet type, reading the snapshot again if the pet type is not in it.
+     */
+    PetType getPetType(int id) throws ObjectRetrievalFailureException {
+        Snapshot current = get();
+        PetType petType = current.petTypesById.find(id);
+        return petType != null ? petType : reloadForMissingEntry(current).petTypesById.getById(id);
+    }
+
+    /**
+     * Look up a pet type by name, ignoring case, reading the snapshot again if no pet type has that name.
+     *
+     * @return the pet type with the lowest id among those with that name, or <code>null</code> if there is none
+     */
+    PetType findPetTypeByName(String name) {
+        String key = nameKey(name);
+        Snapshot current = get();
+        PetType petType = current.petTypesByName.get(key);
+        return petType != null ? petType : reloadForMissingEntry(current).petTypesByName.get(key);
+    }
+
+    /**
+     * Look up a specialty, reading the snapshot again if the specialty is not in it.
+     */
+    Specialty getSpecialty(int id) throws ObjectRetrievalFailureException {
+        Snapshot current = get();
+        Specialty specialty = current.specialtiesById.find(id);
+        return specialty != null ? specialty : reloadForMissingEntry(current).specialtiesById.getById(id);
+    }
+
+    /**
+     * Look up a specialty by name, ignoring case, reading the snapshot again if no specialty has that name.
+     *
+     * @return the specialty with the lowest id among those with that name, or <code>null</code> if there is none
+     */
+    Specialty findSpecialtyByName(String name) {
+        String key = nameKey(name);
+        Snapshot current = get();
+        Specialty specialty = current.specialtiesByName.get(key);
+        return specialty != null ? specialty : reloadForMissingEntry(current).specialtiesByName.get(key);
+    }
+
+    /**
+     * Read the snapshot of the current transaction again, so that its later lookups see its write; the shared
+     * snapshot is only replaced once the transaction commits. Called after every write to either table.
+     */
+    void refresh() {
+        Snapshot refreshed = read();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.snapshot = refreshed;
+            return;
+        }
+        PendingRefresh pending = pendingRefresh();
+        if (pending == null) {
+            pending = new PendingRefresh();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.snapshot = refreshed;
+    }
+
+    /**
+     * @return the snapshot to look up an id or name missing from the given one in: a newer one, unless the given one
+     * is that of the current transaction or is still the shared one and too recent to be read again
+     */
+    private Snapshot reloadForMissingEntry(Snapshot current) {
+        Snapshot shared = this.snapshot;
+        if (pendingRefresh() != null
+            || shared != null && shared.version == current.version && System.nanoTime() - current.loadedAt < MIN_RELOAD_INTERVAL_NANOS) {
+            return current;
+        }
+        return load(current);
+    }
+
+    /**
+     * @return the snapshot registered by the current transaction, or <code>null</code>
+     */
+    private PendingRefresh pendingRefresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (synchronization instanceof PendingRefresh
+                    && ((PendingRefresh) synchronization).referenceData() == this) {
+                    return (PendingRefresh) synchronization;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read a new shared snapshot, unless another thread has replaced the given stale one in the meantime.
+     */
+    private synchronized Snapshot load(Snapshot stale) {
+        Snapshot current = this.snapshot;
+        if (current != null && (stale == null || current.version > stale.version)) {
+            return current;
+        }
+        Snapshot loaded = read();
+        this.snapshot = loaded;
+        return loaded;
+    }
+
+    /**
+     * Drop the shared snapshot. Serialized with {@link #load}, so that a load started before a commit cannot publish
+     * what it read afterwards.
+     */
+    private synchronized void invalidate() {
+        this.snapshot = null;
+    }
+
+    private Snapshot read() {
+        Map<String, Object> params = new HashMap<>();
+        List<PetType> petTypes = this.namedParameterJdbcTemplate.query(
+            "SELECT id, name FROM types", params, new JdbcPetTypeRowMapper());
+        List<Specialty> specialties = this.namedParameterJdbcTemplate.query(
+            "SELECT id, name FROM specialties", params, new JdbcSpecialtyRowMapper());
+        return new Snapshot(this.versions.incrementAndGet(), petTypes, specialties);
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The snapshot read by a transaction that wrote pet types or specialties.
+     */
+    private final class PendingRefresh implements TransactionSynchronization {
+
+        private Snapshot snapshot;
+
+        JdbcReferenceData referenceData() {
+            return JdbcReferenceData.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            invalidate();
+        }
+    }
+
+    /**
+     * Immutable view of the pet types and specialties at one point in time, indexed by id and by name.
+     */
+    static final class Snapshot {
+
+        private final long version;
+
+        private final long loadedAt = System.nanoTime();
+
+        private final List<PetType> petTypes;
+
+        private final EntityIndex<PetType> petTypesById;
+
+        private final Map<String, PetType> petTypesByName;
+
+        private final List<Specialty> specialties;
+
+        private final EntityIndex<Specialty> specialtiesById;
+
+        private final Map<String, Specialty> specialtiesByName;
+
+        private Snapshot(long version, List<PetType> petTypes, List<Specialty> specialties) {
+            this.version = version;
+            this.petTypes = sortedByName(petTypes, SharedPetType::new);
+            this.petTypesById = EntityIndex.of(this.petTypes, PetType.class);
+            this.petTypesByName = indexedByName(this.petTypes);
+            this.specialties = sortedByName(specialties, SharedSpecialty::new);
+            this.specialtiesById = EntityIndex.of(this.specialties, Specialty.class);
+            this.specialtiesByName = indexedByName(this.specialties);
+        }
+
+        /**
+         * @return the number of this snapshot, increasing with every read of the tables
+         */
+        long getVersion() {
+            return this.version;
+        }
+
+        /**
+         * @return all pet types, ordered by name
+         */
+        List<PetType> getPetTypes() {
+            return this.petTypes;
+        }
+
+        /**
+         * @return all specialties, ordered by name
+         */
+        List<Specialty> getSpecialties() {
+            return this.specialties;
+        }
+
+        private static <T extends NamedEntity> List<T> sortedByName(List<T> entities, Function<T, T> share) {
+            List<T> sorted = new ArrayList<>(entities.size());
+            for (T entity : entities) {
+                sorted.add(share.apply(entity));
+            }
+            sorted.sort(Comparator.comparing(NamedEntity::getName));
+            return Collections.unmodifiableList(sorted);
+        }
+
+        /**
+         * @return the entities by lower-cased name, keeping the one with the lowest id if several share a name
+         */
+        private static <T extends NamedEntity> Map<String, T> indexedByName(List<T> entities) {
+            Map<String, T> byName = new HashMap<>(entities.size() * 2);
+            for (T entity : entities) {
+                if (entity.getName() != null) {
+                    byName.merge(nameKey(entity.getName()), entity,
+                        (kept, other) -> kept.getId() <= other.getId() ? kept : other);
+                }
+            }
+            return Collections.unmodifiableMap(byName);
+        }
+    }
+
+    /**
+     * A pet type of a snapshot, whose setters throw.
+     */
+    private static final class SharedPetType extends PetType {
+
+        SharedPetType(PetType petType) {
+            super.setId(petType.getId());
+            super.setName(petType.getName());
+        }
+
+        @Override
+        public void setId(Integer id) {
+            throw new UnsupportedOperationException("Pet types of the reference data snapshot are shared");
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Pet types of the reference data snapshot are shared");
+        }
+    }
+
+    /**
+     * A specialty of a snapshot, whose setters throw.
+     */
+    private static final class SharedSpecialty extends Specialty {
+
+        SharedSpecialty(Specialty specialty) {
+            super.setId(specialty.getId());
+            super.setName(specialty.getName());
+        }
+
+        @Override
+        public void setId(Integer id) {
+            throw new UnsupportedOperationException("Specialties of the reference data snapshot are shared");
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Specialties of the reference data snapshot are shared");
+        }
+    }
+
+}
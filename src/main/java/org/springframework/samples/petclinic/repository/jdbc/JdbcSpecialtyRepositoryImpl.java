@@ -16,8 +16,10 @@
 
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -25,12 +27,9 @@ import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
 import org.springframework.stereotype.Repository;
@@ -48,37 +47,38 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
 	
 	private SimpleJdbcInsert insertSpecialty;
 
+	private JdbcReferenceData referenceData;
+
 	@Autowired
-	public JdbcSpecialtyRepositoryImpl(DataSource dataSource) {
+	public JdbcSpecialtyRepositoryImpl(DataSource dataSource, JdbcReferenceData referenceData) {
 		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 		this.insertSpecialty = new SimpleJdbcInsert(dataSource)
 	            .withTableName("specialties")
 	            .usingGeneratedKeyColumns("id");
+		this.referenceData = referenceData;
 	}
 
+	/**
+	 * Returns a copy of the specialty held by the {@link JdbcReferenceData} snapshot, so that callers may modify it.
+	 */
 	@Override
 	public Specialty findById(int id) {
-		Specialty specialty;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            specialty = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM specialties WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(Specialty.class));
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Specialty.class, id);
-        }
-        return specialty;
+		return copyOf(this.referenceData.getSpecialty(id));
+	}
+
+	@Override
+	public Specialty findByName(String name) throws DataAccessException {
+		Specialty specialty = this.referenceData.findSpecialtyByName(name);
+		return specialty != null ? copyOf(specialty) : null;
 	}
 
 	@Override
 	public Collection<Specialty> findAll() throws DataAccessException {
-		Map<String, Object> params = new HashMap<>();
-        return this.namedParameterJdbcTemplate.query(
-            "SELECT id, name FROM specialties",
-            params,
-            BeanPropertyRowMapper.newInstance(Specialty.class));
+		List<Specialty> specialties = new ArrayList<>();
+		for (Specialty specialty : this.referenceData.get().getSpecialties()) {
+			specialties.add(copyOf(specialty));
+		}
+		return specialties;
 	}
 
 	@Override
@@ -91,7 +91,7 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
             this.namedParameterJdbcTemplate.update("UPDATE specialties SET name=:name WHERE id=:id",
                 parameterSource);
         }
-
+		this.referenceData.refresh();
 	}
 
 	@Override
@@ -100,6 +100,14 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
         params.put("id", specialty.getId());
         this.namedParameterJdbcTemplate.update("DELETE FROM vet_specialties WHERE specialty_id=:id", params);
         this.namedParameterJdbcTemplate.update("DELETE FROM specialties WHERE id=:id", params);
+		this.referenceData.refresh();
+	}
+
+	private static Specialty copyOf(Specialty specialty) {
+		Specialty copy = new Specialty();
+		copy.setId(specialty.getId());
+		copy.setName(specialty.getName());
+		return copy;
 	}
 
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.model.Specialty;
+
+/**
+ * {@link RowMapper} implementation mapping the <code>specialties</code> columns of a {@link ResultSet} to a
+ * {@link Specialty}.
+ */
+class JdbcSpecialtyRowMapper extends JdbcColumnIndexRowMapper<Specialty> {
+
+    JdbcSpecialtyRowMapper() {
+        this("id", "name");
+    }
+
+    JdbcSpecialtyRowMapper(String idColumn, String nameColumn) {
+        super(idColumn, nameColumn);
+    }
+
+    @Override
+    protected Specialty mapRow(ResultSet rs, int[] columns) throws SQLException {
+        Specialty specialty = new Specialty();
+        specialty.setId(rs.getInt(columns[0]));
+        specialty.setName(rs.getString(columns[1]));
+        return specialty;
+    }
+}
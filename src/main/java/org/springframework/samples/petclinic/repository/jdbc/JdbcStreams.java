@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Helpers for the cursor-backed <code>streamAll</code> queries of the JDBC repositories.
+ */
+final class JdbcStreams {
+
+    private JdbcStreams() {
+    }
+
+    /**
+     * Create a template for <code>queryForStream</code> calls, reading forward-only, read-only result sets in
+     * batches of the given fetch size.
+     */
+    static NamedParameterJdbcTemplate streamingTemplate(DataSource dataSource, int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        return new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Collapse runs of the same instance into one element. Used with row mappers that keep returning the entity of
+     * the previous row while the rows of a join still belong to it; an entity is only emitted once the first row
+     * of the next entity has been read, so it is complete when the consumer sees it. Closing the returned stream
+     * closes the given one.
+     */
+    static <T> Stream<T> collapseRuns(Stream<T> rows) {
+        Iterator<T> iterator = rows.iterator();
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            private T current;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                while (iterator.hasNext()) {
+                    T next = iterator.next();
+                    if (this.current != null && next != this.current) {
+                        T complete = this.current;
+                        this.current = next;
+                        action.accept(complete);
+                        return true;
+                    }
+                    this.current = next;
+                }
+                if (this.current == null) {
+                    return false;
+                }
+                T complete = this.current;
+                this.current = null;
+                action.accept(complete);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(rows::close);
+    }
+
+}
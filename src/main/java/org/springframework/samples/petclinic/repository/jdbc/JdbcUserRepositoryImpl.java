@@ -1,68 +1,182 @@
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
 import org.springframework.samples.petclinic.model.Role;
 import org.springframework.samples.petclinic.model.User;
 import org.springframework.samples.petclinic.repository.UserRepository;
 import org.springframework.stereotype.Repository;
 
+/**
+ * A simple JDBC-based implementation of the {@link UserRepository} interface.
+ * <p>
+ * Users are written with the native upsert statement of the underlying database (<code>MERGE</code> on HSQLDB,
+ * <code>ON DUPLICATE KEY UPDATE</code> on MySQL, <code>ON CONFLICT</code> on PostgreSQL), falling back to an update
+ * followed by an insert of the missing users elsewhere. Roles are compared with the stored ones and only the
+ * difference is written. All statements are batched across the saved users.
+ */
 @Repository
 @Profile("jdbc")
 public class JdbcUserRepositoryImpl implements UserRepository {
 
+    private static final int USERNAME_BATCH_SIZE = 1000;
+
+    private static final String UPDATE_USER =
+        "UPDATE users SET password=:password, enabled=:enabled WHERE username=:username";
+
+    private static final String INSERT_USER =
+        "INSERT INTO users (username, password, enabled) VALUES (:username, :password, :enabled)";
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-    private SimpleJdbcInsert insertUser;
+    private String upsertUser;
 
     @Autowired
     public JdbcUserRepositoryImpl(DataSource dataSource) {
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-        this.insertUser = new SimpleJdbcInsert(dataSource).withTableName("users");
+        this.upsertUser = upsertStatement(dataSource);
     }
 
-    @Override
-    public void save(User user) throws DataAccessException {
-
-        BeanPropertySqlParameterSource parameterSource = new BeanPropertySqlParameterSource(user);
-
+    /**
+     * Return the native upsert statement for the given database, or <code>null</code> if it has none we know of.
+     */
+    private static String upsertStatement(DataSource dataSource) {
+        String databaseName;
         try {
-            getByUsername(user.getUsername());
-            this.namedParameterJdbcTemplate.update("UPDATE users SET password=:password, enabled=:enabled WHERE username=:username", parameterSource);
-        } catch (EmptyResultDataAccessException e) {
-            this.insertUser.execute(parameterSource);
-        } finally {
-            updateUserRoles(user);
+            databaseName = JdbcUtils.commonDatabaseName(
+                JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            return null;
+        }
+        if ("HSQL Database Engine".equals(databaseName)) {
+            return "MERGE INTO users USING (VALUES (CAST(:username AS VARCHAR(20)), CAST(:password AS VARCHAR(20)), " +
+                "CAST(:enabled AS BOOLEAN))) AS vals(username, password, enabled) ON users.username = vals.username " +
+                "WHEN MATCHED THEN UPDATE SET users.password = vals.password, users.enabled = vals.enabled " +
+                "WHEN NOT MATCHED THEN INSERT (username, password, enabled) " +
+                "VALUES (vals.username, vals.password, vals.enabled)";
         }
+        if ("MySQL".equals(databaseName) || "MariaDB".equals(databaseName)) {
+            return INSERT_USER + " ON DUPLICATE KEY UPDATE password=VALUES(password), enabled=VALUES(enabled)";
+        }
+        if ("PostgreSQL".equals(databaseName)) {
+            return INSERT_USER + " ON CONFLICT (username) DO UPDATE SET password=EXCLUDED.password, enabled=EXCLUDED.enabled";
+        }
+        return null;
     }
 
-    private User getByUsername(String username) {
+    @Override
+    public void save(User user) throws DataAccessException {
+        saveAll(Collections.singletonList(user));
+    }
 
-        Map<String, Object> params = new HashMap<>();
-        params.put("username", username);
-        return this.namedParameterJdbcTemplate.queryForObject("SELECT * FROM users WHERE username=:username",
-            params, BeanPropertyRowMapper.newInstance(User.class));
+    @Override
+    public void saveAll(Collection<User> users) throws DataAccessException {
+        if (users.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] userParams = new SqlParameterSource[users.size()];
+        int i = 0;
+        for (User user : users) {
+            userParams[i++] = new BeanPropertySqlParameterSource(user);
+        }
+        if (this.upsertUser != null) {
+            this.namedParameterJdbcTemplate.batchUpdate(this.upsertUser, userParams);
+        } else {
+            int[] updateCounts = this.namedParameterJdbcTemplate.batchUpdate(UPDATE_USER, userParams);
+            List<SqlParameterSource> missing = new ArrayList<>();
+            for (int j = 0; j < updateCounts.length; j++) {
+                if (updateCounts[j] == 0) {
+                    missing.add(userParams[j]);
+                }
+            }
+            if (!missing.isEmpty()) {
+                this.namedParameterJdbcTemplate.batchUpdate(INSERT_USER, missing.toArray(new SqlParameterSource[0]));
+            }
+        }
+        updateUserRoles(users);
     }
 
-    private void updateUserRoles(User user) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("username", user.getUsername());
-        this.namedParameterJdbcTemplate.update("DELETE FROM roles WHERE username=:username", params);
-        for (Role role : user.getRoles()) {
-            params.put("role", role.getName());
-            if (role.getName() != null) {
-                this.namedParameterJdbcTemplate.update("INSERT INTO roles(username, role) VALUES (:username, :role)", params);
+    /**
+     * Bring the roles rows of the given users in line with their roles, inserting and deleting only the rows that
+     * changed, each kind in one batch.
+     */
+    private void updateUserRoles(Collection<User> users) {
+        Map<String, Set<String>> storedRoles = findRoleNames(users);
+        List<SqlParameterSource> deletes = new ArrayList<>();
+        List<SqlParameterSource> inserts = new ArrayList<>();
+        for (User user : users) {
+            Set<String> requested = new LinkedHashSet<>();
+            if (user.getRoles() != null) {
+                for (Role role : user.getRoles()) {
+                    if (role.getName() != null) {
+                        requested.add(role.getName());
+                    }
+                }
             }
+            Set<String> stored = storedRoles.getOrDefault(user.getUsername(), Collections.emptySet());
+            for (String role : stored) {
+                if (!requested.contains(role)) {
+                    deletes.add(createRoleParameterSource(user, role));
+                }
+            }
+            for (String role : requested) {
+                if (!stored.contains(role)) {
+                    inserts.add(createRoleParameterSource(user, role));
+                }
+            }
+        }
+        if (!deletes.isEmpty()) {
+            this.namedParameterJdbcTemplate.batchUpdate("DELETE FROM roles WHERE username=:username AND role=:role",
+                deletes.toArray(new SqlParameterSource[0]));
         }
+        if (!inserts.isEmpty()) {
+            this.namedParameterJdbcTemplate.batchUpdate("INSERT INTO roles(username, role) VALUES (:username, :role)",
+                inserts.toArray(new SqlParameterSource[0]));
+        }
+    }
+
+    /**
+     * Load the stored role names of the given users, keyed by username.
+     */
+    private Map<String, Set<String>> findRoleNames(Collection<User> users) {
+        List<String> usernames = new ArrayList<>(users.size());
+        for (User user : users) {
+            usernames.add(user.getUsername());
+        }
+        Map<String, Set<String>> roles = new HashMap<>();
+        for (int from = 0; from < usernames.size(); from += USERNAME_BATCH_SIZE) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("usernames", usernames.subList(from, Math.min(from + USERNAME_BATCH_SIZE, usernames.size())));
+            this.namedParameterJdbcTemplate.query("SELECT username, role FROM roles WHERE username IN (:usernames)",
+                params, rs -> {
+                    roles.computeIfAbsent(rs.getString(1), username -> new HashSet<>()).add(rs.getString(2));
+                });
+        }
+        return roles;
+    }
+
+    private MapSqlParameterSource createRoleParameterSource(User user, String role) {
+        return new MapSqlParameterSource()
+            .addValue("username", user.getUsername())
+            .addValue("role", role);
     }
 }
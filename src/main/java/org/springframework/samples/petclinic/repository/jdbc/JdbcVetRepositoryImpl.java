@@ -15,30 +15,30 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
-import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -57,15 +57,25 @@ import org.springframework.stereotype.Repository;
 @Profile("jdbc")
 public class JdbcVetRepositoryImpl implements VetRepository {
 
-    private JdbcTemplate jdbcTemplate;
+    /**
+     * Selects vets with the ids of their specialties; the specialties are resolved through the
+     * {@link JdbcReferenceData} snapshot.
+     */
+    private static final String VET_SPECIALTIES_SELECT =
+        "SELECT vets.id as vets_id, first_name, last_name, vet_specialties.specialty_id " +
+            "FROM vets LEFT OUTER JOIN vet_specialties ON vets.id = vet_specialties.vet_id";
+
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 	private SimpleJdbcInsert insertVet;
+	private JdbcReferenceData referenceData;
+	private JdbcFanOut fanOut;
 
     @Autowired
-    public JdbcVetRepositoryImpl(DataSource dataSource, JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    public JdbcVetRepositoryImpl(DataSource dataSource, JdbcReferenceData referenceData, JdbcFanOut fanOut) {
 		this.insertVet = new SimpleJdbcInsert(dataSource).withTableName("vets").usingGeneratedKeyColumns("id");
 		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		this.referenceData = referenceData;
+		this.fanOut = fanOut;
     }
 
     /**
@@ -73,67 +83,70 @@ public class JdbcVetRepositoryImpl implements VetRepository {
      */
     @Override
     public Collection<Vet> findAll() throws DataAccessException {
-        List<Vet> vets = new ArrayList<>();
-        // Retrieve the list of all vets.
-        vets.addAll(this.jdbcTemplate.query(
-            "SELECT id, first_name, last_name FROM vets ORDER BY last_name,first_name",
-            BeanPropertyRowMapper.newInstance(Vet.class)));
+        // Retrieve all vets together with their specialties in a single pass.
+        return this.namedParameterJdbcTemplate.query(
+            VET_SPECIALTIES_SELECT + " ORDER BY vets.last_name, vets.first_name, vets.id",
+            new HashMap<String, Object>(),
+            new JdbcVetSpecialtyExtractor(this.referenceData));
+    }
 
-        // Retrieve the list of all possible specialties.
-        final List<Specialty> specialties = this.jdbcTemplate.query(
-            "SELECT id, name FROM specialties",
-            BeanPropertyRowMapper.newInstance(Specialty.class));
+	/**
+	 * Loads a page of {@link Vet Vets} by id. The page is bounded on the vets table first, so that the join with the
+	 * specialties does not cut a vet's specialties short.
+	 */
+	@Override
+	public Collection<Vet> findPage(int afterId, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("afterId", afterId);
+		params.put("limit", limit);
+		List<Integer> ids = this.namedParameterJdbcTemplate.queryForList(
+				"SELECT id FROM vets WHERE id > :afterId ORDER BY id LIMIT :limit", params, Integer.class);
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		params.put("ids", ids);
+		return this.namedParameterJdbcTemplate.query(
+				VET_SPECIALTIES_SELECT + " WHERE vets.id IN (:ids) ORDER BY vets.id",
+				params,
+				new JdbcVetSpecialtyExtractor(this.referenceData));
+	}
 
-        // Build each vet's list of specialties.
-        for (Vet vet : vets) {
-            final List<Integer> vetSpecialtiesIds = this.jdbcTemplate.query(
-                "SELECT specialty_id FROM vet_specialties WHERE vet_id=?",
-                new BeanPropertyRowMapper<Integer>() {
-                    @Override
-                    public Integer mapRow(ResultSet rs, int row) throws SQLException {
-                        return rs.getInt(1);
-                    }
-                },
-                vet.getId());
-            for (int specialtyId : vetSpecialtiesIds) {
-                Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
-                vet.addSpecialty(specialty);
-            }
-        }
-        return vets;
-    }
-    
 	@Override
 	public Vet findById(int id) throws DataAccessException {
-		Vet vet;
-		try {
-			Map<String, Object> vet_params = new HashMap<>();
-			vet_params.put("id", id);
-			vet = this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, first_name, last_name FROM vets WHERE id= :id",
-					vet_params,
-					BeanPropertyRowMapper.newInstance(Vet.class));
-
-			final List<Specialty> specialties = this.namedParameterJdbcTemplate.query(
-					"SELECT id, name FROM specialties", vet_params, BeanPropertyRowMapper.newInstance(Specialty.class));
-
-			final List<Integer> vetSpecialtiesIds = this.namedParameterJdbcTemplate.query(
-					"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id",
-					vet_params,
-					new BeanPropertyRowMapper<Integer>() {
-						@Override
-						public Integer mapRow(ResultSet rs, int row) throws SQLException {
-							return rs.getInt(1);
-						}
-					});
-			for (int specialtyId : vetSpecialtiesIds) {
-				Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
-				vet.addSpecialty(specialty);
-			}
+		Map<String, Object> vet_params = new HashMap<>();
+		vet_params.put("id", id);
+		if (this.fanOut.isActive()) {
+			return findByIdFannedOut(id, vet_params);
+		}
+		List<Vet> vets = this.namedParameterJdbcTemplate.query(
+				VET_SPECIALTIES_SELECT + " WHERE vets.id= :id",
+				vet_params,
+				new JdbcVetSpecialtyExtractor(this.referenceData));
+		if (vets.isEmpty()) {
+			throw new ObjectRetrievalFailureException(Vet.class, id);
+		}
+		return vets.get(0);
+	}
 
-		} catch (EmptyResultDataAccessException ex) {
+	/**
+	 * Loads the {@link Vet} row and the ids of its specialties concurrently through {@link JdbcFanOut} instead of
+	 * joining them.
+	 */
+	private Vet findByIdFannedOut(int id, Map<String, Object> vet_params) {
+		Supplier<List<Integer>> specialtyIds = this.fanOut.fork(() -> this.namedParameterJdbcTemplate.queryForList(
+				"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id", vet_params, Integer.class));
+		Supplier<List<Vet>> vetRows = this.fanOut.fork(() -> this.namedParameterJdbcTemplate.query(
+				"SELECT id as vets_id, first_name, last_name FROM vets WHERE id= :id",
+				vet_params,
+				new JdbcVetRowMapper("vets_id")));
+		List<Vet> vets = vetRows.get();
+		if (vets.isEmpty()) {
 			throw new ObjectRetrievalFailureException(Vet.class, id);
 		}
+		Vet vet = vets.get(0);
+		for (Integer specialtyId : specialtyIds.get()) {
+			vet.addSpecialty(this.referenceData.getSpecialty(specialtyId));
+		}
 		return vet;
 	}
 
@@ -143,11 +156,11 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 		if (vet.isNew()) {
 			Number newKey = this.insertVet.executeAndReturnKey(parameterSource);
 			vet.setId(newKey.intValue());
-			updateVetSpecialties(vet);
+			updateVetSpecialties(vet, true);
 		} else {
 			this.namedParameterJdbcTemplate
 					.update("UPDATE vets SET first_name=:firstName, last_name=:lastName WHERE id=:id", parameterSource);
-			updateVetSpecialties(vet);
+			updateVetSpecialties(vet, false);
 		}
 	}
 
@@ -159,16 +172,52 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 		this.namedParameterJdbcTemplate.update("DELETE FROM vets WHERE id=:id", params);
 	}
 	
-	private void updateVetSpecialties(Vet vet) throws DataAccessException {
-		Map<String, Object> params = new HashMap<>();
-		params.put("id", vet.getId());
-		this.namedParameterJdbcTemplate.update("DELETE FROM vet_specialties WHERE vet_id=:id", params);
+	/**
+	 * Bring the vet_specialties rows of the given vet in line with its specialties, inserting and deleting only the rows
+	 * that changed, each kind in one batch.
+	 */
+	private void updateVetSpecialties(Vet vet, boolean isNew) throws DataAccessException {
+		Set<Integer> requested = new LinkedHashSet<>();
 		for (Specialty spec : vet.getSpecialties()) {
-			params.put("spec_id", spec.getId());
-			if(!(spec.getId() == null)) {
-				this.namedParameterJdbcTemplate.update("INSERT INTO vet_specialties VALUES (:id, :spec_id)", params);
+			if (spec.getId() != null) {
+				requested.add(spec.getId());
+			}
+		}
+		Set<Integer> stored = new HashSet<>();
+		if (!isNew) {
+			Map<String, Object> params = new HashMap<>();
+			params.put("id", vet.getId());
+			stored.addAll(this.namedParameterJdbcTemplate.queryForList(
+					"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id", params, Integer.class));
+		}
+		List<SqlParameterSource> deletes = new ArrayList<>();
+		for (Integer specId : stored) {
+			if (!requested.contains(specId)) {
+				deletes.add(createVetSpecialtyParameterSource(vet, specId));
+			}
+		}
+		List<SqlParameterSource> inserts = new ArrayList<>();
+		for (Integer specId : requested) {
+			if (!stored.contains(specId)) {
+				inserts.add(createVetSpecialtyParameterSource(vet, specId));
 			}
 		}
+		if (!deletes.isEmpty()) {
+			this.namedParameterJdbcTemplate.batchUpdate(
+					"DELETE FROM vet_specialties WHERE vet_id=:id AND specialty_id=:spec_id",
+					deletes.toArray(new SqlParameterSource[0]));
+		}
+		if (!inserts.isEmpty()) {
+			this.namedParameterJdbcTemplate.batchUpdate(
+					"INSERT INTO vet_specialties VALUES (:id, :spec_id)",
+					inserts.toArray(new SqlParameterSource[0]));
+		}
+	}
+
+	private MapSqlParameterSource createVetSpecialtyParameterSource(Vet vet, Integer specId) {
+		return new MapSqlParameterSource()
+				.addValue("id", vet.getId())
+				.addValue("spec_id", specId);
 	}
 
 }
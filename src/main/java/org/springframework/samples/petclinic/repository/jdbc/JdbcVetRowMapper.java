@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.model.Vet;
+
+/**
+ * {@link RowMapper} implementation mapping the <code>vets</code> columns of a {@link ResultSet} to a {@link Vet},
+ * without specialties.
+ */
+class JdbcVetRowMapper extends JdbcColumnIndexRowMapper<Vet> {
+
+    JdbcVetRowMapper() {
+        this("id");
+    }
+
+    /**
+     * @param idColumn label of the vet id column, for queries where <code>id</code> is ambiguous
+     */
+    JdbcVetRowMapper(String idColumn) {
+        super(idColumn, "first_name", "last_name");
+    }
+
+    @Override
+    protected Vet mapRow(ResultSet rs, int[] columns) throws SQLException {
+        Vet vet = new Vet();
+        vet.setId(rs.getInt(columns[0]));
+        vet.setFirstName(rs.getString(columns[1]));
+        vet.setLastName(rs.getString(columns[2]));
+        return vet;
+    }
+}
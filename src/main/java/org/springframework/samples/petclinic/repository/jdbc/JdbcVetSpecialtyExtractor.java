@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.util.EntityIndex;
+
+/**
+ * {@link ResultSetExtractor} implementation assembling {@link Vet Vets} and their {@link Specialty Specialties}
+ * from a single outer join of vets and vet_specialties.
+ * <p>
+ * Vets are kept in the order of their first row; specialties are the shared instances of the
+ * {@link JdbcReferenceData} snapshot.
+ */
+class JdbcVetSpecialtyExtractor implements ResultSetExtractor<List<Vet>> {
+
+    private final JdbcReferenceData referenceData;
+
+    JdbcVetSpecialtyExtractor(JdbcReferenceData referenceData) {
+        this.referenceData = referenceData;
+    }
+
+    @Override
+    public List<Vet> extractData(ResultSet rs) throws SQLException {
+        List<Vet> vets = new ArrayList<>();
+        EntityIndex<Vet> vetsById = new EntityIndex<>(Vet.class);
+        JdbcVetRowMapper vetRowMapper = new JdbcVetRowMapper("vets_id");
+        int vetIdColumn = rs.findColumn("vets_id");
+        int specialtyIdColumn = rs.findColumn("specialty_id");
+        int rowNum = 0;
+        while (rs.next()) {
+            int vetId = rs.getInt(vetIdColumn);
+            Vet vet = vetsById.find(vetId);
+            if (vet == null) {
+                vet = vetRowMapper.mapRow(rs, rowNum);
+                vets.add(vet);
+                vetsById.add(vet);
+            }
+            int specialtyId = rs.getInt(specialtyIdColumn);
+            if (!rs.wasNull()) {
+                vet.addSpecialty(this.referenceData.getSpecialty(specialtyId));
+            }
+            rowNum++;
+        }
+        return vets;
+    }
+}
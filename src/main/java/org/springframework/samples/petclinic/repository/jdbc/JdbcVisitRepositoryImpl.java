@@ -16,30 +16,32 @@
 package org.springframework.samples.petclinic.repository.jdbc;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.Owner;
-import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * A simple JDBC-based implementation of the {@link VisitRepository} interface.
@@ -57,17 +59,45 @@ import java.util.Map;
 @Profile("jdbc")
 public class JdbcVisitRepositoryImpl implements VisitRepository {
 
+    private static final String INSERT_VISIT = "INSERT INTO visits (visit_date, description, pet_id) VALUES (?, ?, ?)";
+
+    private static final String UPDATE_VISIT =
+        "UPDATE visits SET visit_date=:visit_date, description=:description, pet_id=:pet_id WHERE id=:id";
+
+    /**
+     * Maximum number of visit ids bound into a single <code>IN (...)</code> list.
+     */
+    private static final int VISIT_ID_BATCH_SIZE = 1000;
+
+    /**
+     * Selects visits together with their pet and the pet's owner in a single join; pet types are resolved through the
+     * {@link JdbcReferenceData} snapshot.
+     */
+    private static final String VISIT_PET_OWNER_SELECT =
+        "SELECT visits.id as visit_id, visit_date, description, pets.id as pets_id, pets.name, birth_date, type_id, " +
+            "owner_id, first_name, last_name, address, city, telephone " +
+            "FROM visits JOIN pets ON visits.pet_id = pets.id JOIN owners ON pets.owner_id = owners.id";
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    private NamedParameterJdbcTemplate streamJdbcTemplate;
+
     protected SimpleJdbcInsert insertVisit;
 
+    private JdbcReferenceData referenceData;
+
     @Autowired
-    public JdbcVisitRepositoryImpl(DataSource dataSource) {
+    public JdbcVisitRepositoryImpl(DataSource dataSource, JdbcReferenceData referenceData,
+            @Value("${petclinic.stream.fetch-size:1000}") int streamFetchSize) {
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
 
+        this.streamJdbcTemplate = JdbcStreams.streamingTemplate(dataSource, streamFetchSize);
+
         this.insertVisit = new SimpleJdbcInsert(dataSource)
             .withTableName("visits")
             .usingGeneratedKeyColumns("id");
+
+        this.referenceData = referenceData;
     }
 
 
@@ -109,9 +139,9 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 			Map<String, Object> params = new HashMap<>();
 			params.put("id", id);
 			visit = this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id as visit_id, visits.pet_id as pets_id, visit_date, description FROM visits WHERE id= :id",
+					VISIT_PET_OWNER_SELECT + " WHERE visits.id= :id",
 					params,
-					new JdbcVisitRowMapperExt());
+					new JdbcVisitRowMapperExt(this.referenceData));
 		} catch (EmptyResultDataAccessException ex) {
 			throw new ObjectRetrievalFailureException(Visit.class, id);
 		}
@@ -122,8 +152,30 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 	public Collection<Visit> findAll() throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
 		return this.namedParameterJdbcTemplate.query(
-				"SELECT id as visit_id, pets.id as pets_id, visit_date, description FROM visits LEFT JOIN pets ON visits.pet_id = pets.id",
-				params, new JdbcVisitRowMapperExt());
+				VISIT_PET_OWNER_SELECT,
+				params, new JdbcVisitRowMapperExt(this.referenceData));
+	}
+
+	@Override
+	public Collection<Visit> findPage(int afterId, int limit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("afterId", afterId);
+		params.put("limit", limit);
+		return this.namedParameterJdbcTemplate.query(
+				VISIT_PET_OWNER_SELECT + " WHERE visits.id > :afterId ORDER BY visits.id LIMIT :limit",
+				params, new JdbcVisitRowMapperExt(this.referenceData));
+	}
+
+	/**
+	 * Streams all {@link Visit Visits} ordered by id. Unlike {@link #findAll}, visits of the same pet get their own
+	 * pet and owner instances, so that memory use does not grow with the number of pets seen; only pet types are
+	 * shared.
+	 */
+	@Override
+	public Stream<Visit> streamAll() throws DataAccessException {
+		return this.streamJdbcTemplate.queryForStream(
+				VISIT_PET_OWNER_SELECT + " ORDER BY visits.id",
+				new HashMap<String, Object>(), new JdbcVisitRowMapperExt(this.referenceData, false));
 	}
 
 	@Override
@@ -133,7 +185,7 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 			visit.setId(newKey.intValue());
 		} else {
 			this.namedParameterJdbcTemplate.update(
-					"UPDATE visits SET visit_date=:visit_date, description=:description, pet_id=:pet_id WHERE id=:id ",
+					UPDATE_VISIT,
 					createVisitParameterSource(visit));
 		}
 	}
@@ -145,39 +197,112 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
 		this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", params);
 	}
 
-	protected class JdbcVisitRowMapperExt implements RowMapper<Visit> {
+	/**
+	 * Inserts the new {@link Visit Visits} in JDBC batches, collecting their generated ids, and updates the others
+	 * with a single batch update.
+	 */
+	@Override
+	public void saveAll(Collection<Visit> visits) throws DataAccessException {
+		List<Visit> newVisits = new ArrayList<>();
+		List<Object[]> inserts = new ArrayList<>();
+		List<SqlParameterSource> updates = new ArrayList<>();
+		for (Visit visit : visits) {
+			if (visit.isNew()) {
+				newVisits.add(visit);
+				inserts.add(new Object[] {visit.getDate(), visit.getDescription(), visit.getPet().getId()});
+			} else {
+				updates.add(createVisitParameterSource(visit));
+			}
+		}
+		if (!newVisits.isEmpty()) {
+			List<Integer> ids = JdbcBatchInsert.executeAndReturnKeys(
+					this.namedParameterJdbcTemplate.getJdbcOperations(), INSERT_VISIT, inserts);
+			for (int i = 0; i < newVisits.size(); i++) {
+				newVisits.get(i).setId(ids.get(i));
+			}
+		}
+		if (!updates.isEmpty()) {
+			this.namedParameterJdbcTemplate.batchUpdate(UPDATE_VISIT, updates.toArray(new SqlParameterSource[0]));
+		}
+	}
+
+	@Override
+	public void deleteAll(Collection<Visit> visits) throws DataAccessException {
+		List<Integer> visitIds = new ArrayList<>(visits.size());
+		for (Visit visit : visits) {
+			visitIds.add(visit.getId());
+		}
+		for (int from = 0; from < visitIds.size(); from += VISIT_ID_BATCH_SIZE) {
+			Map<String, Object> params = new HashMap<>();
+			params.put("ids", visitIds.subList(from, Math.min(from + VISIT_ID_BATCH_SIZE, visitIds.size())));
+			this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id IN (:ids)", params);
+		}
+	}
+
+	/**
+	 * {@link RowMapper} for rows of {@link #VISIT_PET_OWNER_SELECT}. Keeps identity maps of the pets and owners it has
+	 * already created, so that visits sharing a pet (and pets sharing an owner) reference the same instances; pet types
+	 * are the shared instances of the {@link JdbcReferenceData} snapshot. Instances are stateful and must not be shared
+	 * between queries.
+	 */
+	protected static class JdbcVisitRowMapperExt implements RowMapper<Visit> {
+
+		private final boolean sharePets;
+
+		private final JdbcVisitRowMapper visitRowMapper = new JdbcVisitRowMapper();
+
+		private final JdbcPetRowMapper petRowMapper = new JdbcPetRowMapper();
+
+		private final JdbcOwnerRowMapper ownerRowMapper = new JdbcOwnerRowMapper("owner_id");
+
+		private final EntityIndex<JdbcPet> pets = new EntityIndex<>(JdbcPet.class);
+
+		private final EntityIndex<Owner> owners = new EntityIndex<>(Owner.class);
+
+		private final JdbcReferenceData referenceData;
+
+		private int petIdColumn;
+
+		public JdbcVisitRowMapperExt(JdbcReferenceData referenceData) {
+			this(referenceData, true);
+		}
+
+		/**
+		 * @param sharePets whether pets and owners should be shared between visits; pet types are always shared
+		 */
+		public JdbcVisitRowMapperExt(JdbcReferenceData referenceData, boolean sharePets) {
+			this.referenceData = referenceData;
+			this.sharePets = sharePets;
+		}
 
 		@Override
 		public Visit mapRow(ResultSet rs, int rowNum) throws SQLException {
-			Visit visit = new Visit();
-			JdbcPet pet = new JdbcPet();
-			PetType petType = new PetType();
-			Owner owner = new Owner();
-			visit.setId(rs.getInt("visit_id"));
-			Date visitDate = rs.getDate("visit_date");
-			visit.setDate(new Date(visitDate.getTime()));
-			visit.setDescription(rs.getString("description"));
-			Map<String, Object> params = new HashMap<>();
-			params.put("id", rs.getInt("pets_id"));
-			pet = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets WHERE pets.id=:id",
-					params,
-					new JdbcPetRowMapper());
-			params.put("type_id", pet.getTypeId());
-			petType = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, name FROM types WHERE id= :type_id",
-					params,
-					BeanPropertyRowMapper.newInstance(PetType.class));
-			pet.setType(petType);
-			params.put("owner_id", pet.getOwnerId());
-			owner = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :owner_id",
-					params,
-					BeanPropertyRowMapper.newInstance(Owner.class));
-			pet.setOwner(owner);
+			Visit visit = this.visitRowMapper.mapRow(rs, rowNum);
+			if (this.petIdColumn == 0) {
+				this.petIdColumn = rs.findColumn("pets_id");
+			}
+			int petId = rs.getInt(this.petIdColumn);
+			JdbcPet pet = this.sharePets ? this.pets.find(petId) : null;
+			if (pet == null) {
+				pet = this.petRowMapper.mapRow(rs, rowNum);
+				pet.setType(this.referenceData.getPetType(pet.getTypeId()));
+				pet.setOwner(this.sharePets ? mapOwner(rs, rowNum, pet.getOwnerId()) : this.ownerRowMapper.mapRow(rs, rowNum));
+				if (this.sharePets) {
+					this.pets.add(pet);
+				}
+			}
 			visit.setPet(pet);
 			return visit;
 		}
+
+		private Owner mapOwner(ResultSet rs, int rowNum, int ownerId) throws SQLException {
+			Owner owner = this.owners.find(ownerId);
+			if (owner == null) {
+				owner = this.ownerRowMapper.mapRow(rs, rowNum);
+				this.owners.add(owner);
+			}
+			return owner;
+		}
 	}
 
 }
@@ -27,15 +27,19 @@ import java.util.Date;
  * {@link RowMapper} implementation mapping data from a {@link ResultSet} to the corresponding properties
  * of the {@link Visit} class.
  */
-class JdbcVisitRowMapper implements RowMapper<Visit> {
+class JdbcVisitRowMapper extends JdbcColumnIndexRowMapper<Visit> {
+
+    JdbcVisitRowMapper() {
+        super("visit_id", "visit_date", "description");
+    }
 
     @Override
-    public Visit mapRow(ResultSet rs, int row) throws SQLException {
+    protected Visit mapRow(ResultSet rs, int[] columns) throws SQLException {
         Visit visit = new Visit();
-        visit.setId(rs.getInt("visit_id"));
-        Date visitDate = rs.getDate("visit_date");
+        visit.setId(rs.getInt(columns[0]));
+        Date visitDate = rs.getDate(columns[1]);
         visit.setDate(new Date(visitDate.getTime()));
-        visit.setDescription(rs.getString("description"));
+        visit.setDescription(rs.getString(columns[2]));
         return visit;
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.annotations.QueryHints;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Vet;
+
+/**
+ * Applies the named entity graphs of the model to lookups, shared by the JPA and Spring Data JPA repositories.
+ */
+public final class JpaEntityGraphs {
+
+    /**
+     * Query hint fetching the attributes of the given entity graph and leaving all lazy ones outside of it unloaded.
+     */
+    public static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+
+    private JpaEntityGraphs() {
+    }
+
+    /**
+     * Find an entity by id, fetching the given entity graph with it.
+     *
+     * @return the entity, or <code>null</code> if there is none with that id
+     */
+    public static <T> T find(EntityManager em, Class<T> entityClass, String graphName, int id) {
+        Map<String, Object> hints = Collections.singletonMap(FETCH_GRAPH, em.getEntityGraph(graphName));
+        return em.find(entityClass, id, hints);
+    }
+
+    /**
+     * Read the page of entities following the given id, ordered by id, fetching the given entity graph with them.
+     * <p>
+     * A graph with collections cannot be fetched together with a row limit without Hibernate paginating in memory,
+     * so the ids of the page are selected first and the entities then fetched by id.
+     */
+    public static <T extends BaseEntity> Collection<T> findPage(EntityManager em, Class<T> entityClass,
+                                                               String graphName, int afterId, int limit) {
+        String entityName = em.getMetamodel().entity(entityClass).getName();
+        List<Integer> ids = em.createQuery(
+            "SELECT e.id FROM " + entityName + " e WHERE e.id > :afterId ORDER BY e.id", Integer.class)
+            .setParameter("afterId", afterId)
+            .setMaxResults(limit)
+            .getResultList();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery(
+            "SELECT DISTINCT e FROM " + entityName + " e WHERE e.id IN :ids ORDER BY e.id", entityClass)
+            .setParameter("ids", ids)
+            .setHint(FETCH_GRAPH, em.getEntityGraph(graphName))
+            .getResultList();
+    }
+
+    /**
+     * Read the page of entities following the given id, ordered by id, fetching the given entity graph with them in
+     * one query. Only for graphs without collections, with which the row limit still applies in the database.
+     */
+    public static <T extends BaseEntity> Collection<T> findPageWithToOneGraph(EntityManager em, Class<T> entityClass,
+                                                                             String graphName, int afterId, int limit) {
+        String entityName = em.getMetamodel().entity(entityClass).getName();
+        return em.createQuery("SELECT e FROM " + entityName + " e WHERE e.id > :afterId ORDER BY e.id", entityClass)
+            .setParameter("afterId", afterId)
+            .setMaxResults(limit)
+            .setHint(FETCH_GRAPH, em.getEntityGraph(graphName))
+            .getResultList();
+    }
+
+    /**
+     * Read all vets with their specialties through the query cache.
+     */
+    public static Collection<Vet> findAllVets(EntityManager em) {
+        List<Vet> vets = em.createQuery("SELECT DISTINCT vet FROM Vet vet", Vet.class)
+            .setHint(FETCH_GRAPH, em.getEntityGraph(Vet.WITH_SPECIALTIES))
+            .setHint(QueryHints.CACHEABLE, true)
+            .getResultList();
+        vets.forEach(JpaEntityGraphs::initializeSpecialties);
+        return vets;
+    }
+
+    /**
+     * Initialize the specialties of a vet taken from the second-level cache, which does not apply the
+     * {@link Vet#WITH_SPECIALTIES} entity graph. They come from the collection cache as well.
+     */
+    public static Vet initializeSpecialties(Vet vet) {
+        if (vet != null) {
+            // copying the specialties into the returned list initializes them
+            vet.getSpecialties();
+        }
+        return vet;
+    }
+
+    /**
+     * Initialize what the {@link Owner#PETS_WITH_VISITS} entity graph would fetch, for owners read without it.
+     */
+    public static void initializePetsWithVisits(Owner owner) {
+        for (Pet pet : owner.getPets()) {
+            // copying the visits into the returned list initializes them
+            pet.getVisits();
+        }
+    }
+
+}
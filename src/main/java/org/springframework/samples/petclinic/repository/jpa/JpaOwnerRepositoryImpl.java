@@ -15,21 +15,28 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.orm.hibernate5.support.OpenSessionInViewFilter;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.stereotype.Repository;
 
 /**
  * JPA implementation of the {@link OwnerRepository} interface.
+ * <p>
+ * Owners are read with the {@link Owner#PETS_WITH_VISITS} entity graph, which fetches everything the owner list and
+ * the owner detail serialize in a single query.
  *
  * @author Mike Keith
  * @author Rod Johnson
@@ -44,29 +51,40 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
     @PersistenceContext
     private EntityManager em;
 
+    @Value("${petclinic.stream.fetch-size:1000}")
+    private int streamFetchSize;
+
 
-    /**
-     * Important: in the current version of this method, we load Owners with all their Pets and Visits while
-     * we do not need Visits at all and we only need one property from the Pet objects (the 'name' property).
-     * There are some ways to improve it such as:
-     * - creating a Ligtweight class (example here: https://community.jboss.org/wiki/LightweightClass)
-     * - Turning on lazy-loading and using {@link OpenSessionInViewFilter}
-     */
     @SuppressWarnings("unchecked")
     public Collection<Owner> findByLastName(String lastName) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName");
+        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner WHERE owner.lastName LIKE :lastName");
         query.setParameter("lastName", lastName + "%");
+        query.setHint(JpaEntityGraphs.FETCH_GRAPH, this.em.getEntityGraph(Owner.PETS_WITH_VISITS));
+        return query.getResultList();
+    }
+
+    @Override
+    public Map<Integer, String> findAllLastNames() {
+        return JpaProjections.findOwnerLastNames(this.em);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Collection<Owner> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner WHERE owner.id IN :ids");
+        query.setParameter("ids", ids);
+        query.setHint(JpaEntityGraphs.FETCH_GRAPH, this.em.getEntityGraph(Owner.PETS_WITH_VISITS));
         return query.getResultList();
     }
 
     @Override
     public Owner findById(int id) {
-        // using 'join fetch' because a single query should load both owners and pets
-        // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id");
+        Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner WHERE owner.id =:id");
         query.setParameter("id", id);
+        query.setHint(JpaEntityGraphs.FETCH_GRAPH, this.em.getEntityGraph(Owner.PETS_WITH_VISITS));
         return (Owner) query.getSingleResult();
     }
 
@@ -84,13 +102,40 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Owner> findAll() throws DataAccessException {
-		Query query = this.em.createQuery("SELECT owner FROM Owner owner");
+		Query query = this.em.createQuery("SELECT DISTINCT owner FROM Owner owner");
+		query.setHint(JpaEntityGraphs.FETCH_GRAPH, this.em.getEntityGraph(Owner.PETS_WITH_VISITS));
         return query.getResultList();
 	}
 
+	@Override
+	public Collection<Owner> findPage(int afterId, int limit) throws DataAccessException {
+		return JpaEntityGraphs.findPage(this.em, Owner.class, Owner.PETS_WITH_VISITS, afterId, limit);
+	}
+
+	@Override
+	public Collection<OwnerSummary> findAllSummaries() throws DataAccessException {
+		return JpaProjections.findOwnerSummaries(this.em);
+	}
+
 	@Override
 	public void delete(Owner owner) throws DataAccessException {
 		this.em.remove(this.em.contains(owner) ? owner : this.em.merge(owner));
 	}
 
+	@Override
+	public Stream<Owner> streamAll() throws DataAccessException {
+		return JpaStreams.stream(this.em, "SELECT owner FROM Owner owner ORDER BY owner.id", Owner.class, this.streamFetchSize,
+			JpaEntityGraphs::initializePetsWithVisits);
+	}
+
+	@Override
+	public void saveAll(Collection<Owner> owners) throws DataAccessException {
+		JpaWrites.saveAll(this.em, owners);
+	}
+
+	@Override
+	public void deleteAll(Collection<Owner> owners) throws DataAccessException {
+		JpaWrites.deleteAll(this.em, owners);
+	}
+
 }
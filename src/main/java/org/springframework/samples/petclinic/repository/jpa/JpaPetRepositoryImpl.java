@@ -21,10 +21,12 @@ import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.hibernate.annotations.QueryHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
 import org.springframework.samples.petclinic.repository.PetRepository;
 import org.springframework.stereotype.Repository;
 
@@ -47,12 +49,14 @@ public class JpaPetRepositoryImpl implements PetRepository {
     @Override
     @SuppressWarnings("unchecked")
     public List<PetType> findPetTypes() {
-        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name").getResultList();
+        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+            .setHint(QueryHints.CACHEABLE, true)
+            .getResultList();
     }
 
     @Override
     public Pet findById(int id) {
-        return this.em.find(Pet.class, id);
+        return JpaEntityGraphs.find(this.em, Pet.class, Pet.DETAIL, id);
     }
 
     @Override
@@ -67,18 +71,34 @@ public class JpaPetRepositoryImpl implements PetRepository {
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Pet> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT pet FROM Pet pet").getResultList();
+		return this.em.createQuery("SELECT DISTINCT pet FROM Pet pet")
+			.setHint(JpaEntityGraphs.FETCH_GRAPH, this.em.getEntityGraph(Pet.DETAIL))
+			.getResultList();
+	}
+
+	@Override
+	public Collection<Pet> findPage(int afterId, int limit) throws DataAccessException {
+		return JpaEntityGraphs.findPage(this.em, Pet.class, Pet.DETAIL, afterId, limit);
+	}
+
+	@Override
+	public Collection<PetSummary> findAllSummaries() throws DataAccessException {
+		return JpaProjections.findPetSummaries(this.em);
 	}
 
 	@Override
 	public void delete(Pet pet) throws DataAccessException {
-		//this.em.remove(this.em.contains(pet) ? pet : this.em.merge(pet));
-		String petId = pet.getId().toString();
-		this.em.createQuery("DELETE FROM Visit visit WHERE pet_id=" + petId).executeUpdate();
-		this.em.createQuery("DELETE FROM Pet pet WHERE id=" + petId).executeUpdate();
-		if (em.contains(pet)) {
-			em.remove(pet);
-		}
+		JpaWrites.deletePet(this.em, pet);
+	}
+
+	@Override
+	public void saveAll(Collection<Pet> pets) throws DataAccessException {
+		JpaWrites.saveAll(this.em, pets);
+	}
+
+	@Override
+	public void deleteAll(Collection<Pet> pets) throws DataAccessException {
+		JpaWrites.deletePets(this.em, pets);
 	}
 
 }
@@ -16,18 +16,16 @@
 
 package org.springframework.samples.petclinic.repository.jpa;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.hibernate.annotations.QueryHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
-import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.stereotype.Repository;
 
@@ -48,10 +46,23 @@ public class JpaPetTypeRepositoryImpl implements PetTypeRepository {
 		return this.em.find(PetType.class, id);
 	}
 
+	@Override
+	public PetType findByName(String name) throws DataAccessException {
+		List<PetType> petTypes = this.em.createQuery(
+				"SELECT ptype FROM PetType ptype WHERE lower(ptype.name) = lower(:name) ORDER BY ptype.id", PetType.class)
+			.setParameter("name", name)
+			.setMaxResults(1)
+			.setHint(QueryHints.CACHEABLE, true)
+			.getResultList();
+		return petTypes.isEmpty() ? null : petTypes.get(0);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<PetType> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT ptype FROM PetType ptype").getResultList();
+		return this.em.createQuery("SELECT ptype FROM PetType ptype")
+			.setHint(QueryHints.CACHEABLE, true)
+			.getResultList();
 	}
 
 	@Override
@@ -64,21 +75,9 @@ public class JpaPetTypeRepositoryImpl implements PetTypeRepository {
 
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void delete(PetType petType) throws DataAccessException {
-		this.em.remove(this.em.contains(petType) ? petType : this.em.merge(petType));
-		Integer petTypeId = petType.getId();
-		
-		List<Pet> pets = this.em.createQuery("SELECT pet FROM Pet pet WHERE type_id=" + petTypeId).getResultList();
-		for (Pet pet : pets){
-			List<Visit> visits = pet.getVisits();
-			for (Visit visit : visits){
-				this.em.createQuery("DELETE FROM Visit visit WHERE id=" + visit.getId()).executeUpdate();
-			}
-			this.em.createQuery("DELETE FROM Pet pet WHERE id=" + pet.getId()).executeUpdate();
-		}
-		this.em.createQuery("DELETE FROM PetType pettype WHERE id=" + petTypeId).executeUpdate();
+		JpaWrites.deletePetTypeWithPets(this.em, petType.getId());
 	}
 
 }
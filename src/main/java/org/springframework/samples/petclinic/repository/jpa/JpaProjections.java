@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.samples.petclinic.model.projection.OwnerPetSummary;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
+import org.springframework.samples.petclinic.model.projection.PetTypeSummary;
+import org.springframework.samples.petclinic.model.projection.VisitSummary;
+
+/**
+ * Reads the read-only summaries of the model with scalar and constructor-expression queries, shared by the JPA and
+ * Spring Data JPA repositories. No entity is loaded into the persistence context: each listing takes one query for
+ * all visits and one joined query for the summarized rows, assembled in a single pass over the latter.
+ */
+public final class JpaProjections {
+
+    private JpaProjections() {
+    }
+
+    /**
+     * @return the summaries of all owners with their pets and visits, ordered by owner id
+     */
+    public static Collection<OwnerSummary> findOwnerSummaries(EntityManager em) {
+        Map<Integer, List<VisitSummary>> visitsByPetId = findVisitSummariesByPetId(em);
+        List<Object[]> rows = em.createQuery(
+            "SELECT owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone, "
+                + "pet.id, pet.name, pet.birthDate, type.id, type.name "
+                + "FROM Owner owner LEFT JOIN owner.pets pet LEFT JOIN pet.type type ORDER BY owner.id",
+            Object[].class)
+            .getResultList();
+        Map<Integer, PetTypeSummary> types = new HashMap<>();
+        List<OwnerSummary> owners = new ArrayList<>();
+        List<OwnerPetSummary> pets = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            Integer ownerId = (Integer) row[0];
+            if (row[6] != null) {
+                Integer petId = (Integer) row[6];
+                pets.add(new OwnerPetSummary(petId, (String) row[7], (Date) row[8],
+                    petType(types, (Integer) row[9], (String) row[10]), ownerId,
+                    visitsByPetId.getOrDefault(petId, Collections.emptyList())));
+            }
+            if (i + 1 == rows.size() || !ownerId.equals(rows.get(i + 1)[0])) {
+                owners.add(new OwnerSummary(ownerId, (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (String) row[5], pets));
+                pets.clear();
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * @return the summaries of all pets with their owners and visits, ordered by pet id
+     */
+    public static Collection<PetSummary> findPetSummaries(EntityManager em) {
+        Map<Integer, List<VisitSummary>> visitsByPetId = findVisitSummariesByPetId(em);
+        List<Object[]> rows = em.createQuery(
+            "SELECT pet.id, pet.name, pet.birthDate, type.id, type.name, "
+                + "owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone "
+                + "FROM Pet pet LEFT JOIN pet.type type LEFT JOIN pet.owner owner ORDER BY pet.id",
+            Object[].class)
+            .getResultList();
+        Map<Integer, PetTypeSummary> types = new HashMap<>();
+        Map<Integer, OwnerSummary> owners = new HashMap<>();
+        List<PetSummary> pets = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Integer petId = (Integer) row[0];
+            OwnerSummary owner = row[5] == null ? null : owners.computeIfAbsent((Integer) row[5],
+                ownerId -> new OwnerSummary(ownerId, (String) row[6], (String) row[7], (String) row[8],
+                    (String) row[9], (String) row[10]));
+            pets.add(new PetSummary(petId, (String) row[1], (Date) row[2], petType(types, (Integer) row[3],
+                (String) row[4]), owner, visitsByPetId.getOrDefault(petId, Collections.emptyList())));
+        }
+        return pets;
+    }
+
+    /**
+     * @return the last names of all owners by owner id
+     */
+    public static Map<Integer, String> findOwnerLastNames(EntityManager em) {
+        List<Object[]> rows = em.createQuery("SELECT owner.id, owner.lastName FROM Owner owner", Object[].class)
+            .getResultList();
+        Map<Integer, String> lastNames = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            lastNames.put((Integer) row[0], (String) row[1]);
+        }
+        return lastNames;
+    }
+
+    private static Map<Integer, List<VisitSummary>> findVisitSummariesByPetId(EntityManager em) {
+        List<VisitSummary> visits = em.createQuery(
+            "SELECT NEW org.springframework.samples.petclinic.model.projection.VisitSummary("
+                + "visit.id, visit.date, visit.description, visit.pet.id) FROM Visit visit",
+            VisitSummary.class)
+            .getResultList();
+        Map<Integer, List<VisitSummary>> visitsByPetId = new HashMap<>();
+        for (VisitSummary visit : visits) {
+            visitsByPetId.computeIfAbsent(visit.getPetId(), petId -> new ArrayList<>()).add(visit);
+        }
+        return visitsByPetId;
+    }
+
+    private static PetTypeSummary petType(Map<Integer, PetTypeSummary> types, Integer id, String name) {
+        return id == null ? null : types.computeIfAbsent(id, typeId -> new PetTypeSummary(typeId, name));
+    }
+
+}
@@ -17,10 +17,12 @@
 package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.hibernate.annotations.QueryHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -44,10 +46,23 @@ public class JpaSpecialtyRepositoryImpl implements SpecialtyRepository {
 		return this.em.find(Specialty.class, id);
 	}
 
+	@Override
+	public Specialty findByName(String name) throws DataAccessException {
+		List<Specialty> specialties = this.em.createQuery(
+				"SELECT s FROM Specialty s WHERE lower(s.name) = lower(:name) ORDER BY s.id", Specialty.class)
+			.setParameter("name", name)
+			.setMaxResults(1)
+			.setHint(QueryHints.CACHEABLE, true)
+			.getResultList();
+		return specialties.isEmpty() ? null : specialties.get(0);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Specialty> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT s FROM Specialty s").getResultList();
+		return this.em.createQuery("SELECT s FROM Specialty s")
+			.setHint(QueryHints.CACHEABLE, true)
+			.getResultList();
 	}
 
 	@Override
@@ -61,10 +76,7 @@ public class JpaSpecialtyRepositoryImpl implements SpecialtyRepository {
 
 	@Override
 	public void delete(Specialty specialty) throws DataAccessException {
-		this.em.remove(this.em.contains(specialty) ? specialty : this.em.merge(specialty));
-		Integer specId = specialty.getId();
-		this.em.createNativeQuery("DELETE FROM vet_specialties WHERE specialty_id=" + specId).executeUpdate();
-		this.em.createQuery("DELETE FROM Specialty specialty WHERE id=" + specId).executeUpdate();
+		JpaWrites.deleteSpecialty(this.em, specialty);
 	}
 
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jpa;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Streams query results through a Hibernate {@link ScrollableResults} cursor, shared by the <code>streamAll</code>
+ * methods of the JPA and Spring Data JPA repositories.
+ */
+public final class JpaStreams {
+
+    private JpaStreams() {
+    }
+
+    /**
+     * Stream the results of the given JPQL query from a forward-only, read-only cursor. The cursor is read through a
+     * session of its own, which shares the connection and transaction of the given entity manager but not its
+     * persistence context: pending changes of the caller are flushed first, unless its flush mode is manual, and
+     * its managed entities are never detached. The stream's persistence context is cleared every
+     * <code>fetchSize</code> results, so that its size stays bounded however many results are read; entities handed
+     * out before a clear become detached, with their eager associations initialized, and changes to them are not
+     * saved. Closing the returned stream closes the cursor and its session.
+     *
+     * @param em          the entity manager, which must be joined to a transaction for as long as the stream is open
+     * @param jpql        the query; should have a stable order
+     * @param entityClass the result type
+     * @param fetchSize   the number of rows to fetch per round trip
+     */
+    public static <T> Stream<T> stream(EntityManager em, String jpql, Class<T> entityClass, int fetchSize) {
+        return stream(em, jpql, entityClass, fetchSize, entity -> {
+        });
+    }
+
+    /**
+     * Stream the results of the given JPQL query like {@link #stream(EntityManager, String, Class, int)}, passing
+     * each entity to the given initializer before handing it out, so that the lazy associations it initializes are
+     * still usable once the entity is detached.
+     */
+    public static <T> Stream<T> stream(EntityManager em, String jpql, Class<T> entityClass, int fetchSize,
+                                       Consumer<? super T> initializer) {
+        Session session = em.unwrap(Session.class);
+        if (session.getHibernateFlushMode() != FlushMode.MANUAL) {
+            session.flush();
+        }
+        Session streamSession = session.sessionWithOptions().connection().openSession();
+        PersistenceContext persistenceContext = ((SessionImplementor) streamSession).getPersistenceContext();
+        ScrollableResults results;
+        try {
+            results = streamSession.createQuery(jpql, entityClass)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        } catch (RuntimeException ex) {
+            streamSession.close();
+            throw ex;
+        }
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            private int count;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (this.count++ % fetchSize == 0) {
+                    streamSession.clear();
+                }
+                if (!results.next()) {
+                    return false;
+                }
+                // unlike list(), scroll() leaves eager collections uninitialized
+                persistenceContext.initializeNonLazyCollections();
+                T entity = entityClass.cast(results.get(0));
+                initializer.accept(entity);
+                action.accept(entity);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                results.close();
+            } finally {
+                streamSession.close();
+            }
+        });
+    }
+
+}
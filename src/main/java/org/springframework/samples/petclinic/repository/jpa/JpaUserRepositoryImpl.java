@@ -1,5 +1,7 @@
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.Collection;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
@@ -24,4 +26,9 @@ public class JpaUserRepositoryImpl implements UserRepository {
             this.em.merge(user);
         }
     }
+
+    @Override
+    public void saveAll(Collection<User> users) throws DataAccessException {
+        JpaWrites.saveUsers(this.em, users);
+    }
 }
@@ -44,13 +44,17 @@ public class JpaVetRepositoryImpl implements VetRepository {
    
 	@Override
 	public Vet findById(int id) throws DataAccessException {
-		return this.em.find(Vet.class, id);
+		return JpaEntityGraphs.initializeSpecialties(JpaEntityGraphs.find(this.em, Vet.class, Vet.WITH_SPECIALTIES, id));
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Vet> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT vet FROM Vet vet").getResultList();
+		return JpaEntityGraphs.findAllVets(this.em);
+	}
+
+	@Override
+	public Collection<Vet> findPage(int afterId, int limit) throws DataAccessException {
+		return JpaEntityGraphs.findPage(this.em, Vet.class, Vet.WITH_SPECIALTIES, afterId, limit);
 	}
 
 	@Override
@@ -67,5 +71,4 @@ public class JpaVetRepositoryImpl implements VetRepository {
 		this.em.remove(this.em.contains(vet) ? vet : this.em.merge(vet));
 	}
 
-
 }
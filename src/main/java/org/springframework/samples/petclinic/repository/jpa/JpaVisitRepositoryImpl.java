@@ -17,11 +17,13 @@ package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Visit;
@@ -46,6 +48,9 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     @PersistenceContext
     private EntityManager em;
 
+    @Value("${petclinic.stream.fetch-size:1000}")
+    private int streamFetchSize;
+
 
     @Override
     public void save(Visit visit) {
@@ -62,18 +67,26 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     public List<Visit> findByPetId(Integer petId) {
         Query query = this.em.createQuery("SELECT v FROM Visit v where v.pet.id= :id");
         query.setParameter("id", petId);
+        query.setHint(JpaEntityGraphs.FETCH_GRAPH, this.em.getEntityGraph(Visit.WITH_PET));
         return query.getResultList();
     }
     
 	@Override
 	public Visit findById(int id) throws DataAccessException {
-		return this.em.find(Visit.class, id);
+		return JpaEntityGraphs.find(this.em, Visit.class, Visit.WITH_PET, id);
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Visit> findAll() throws DataAccessException {
-        return this.em.createQuery("SELECT v FROM Visit v").getResultList();
+        return this.em.createQuery("SELECT v FROM Visit v")
+            .setHint(JpaEntityGraphs.FETCH_GRAPH, this.em.getEntityGraph(Visit.WITH_PET))
+            .getResultList();
+	}
+
+	@Override
+	public Collection<Visit> findPage(int afterId, int limit) throws DataAccessException {
+		return JpaEntityGraphs.findPageWithToOneGraph(this.em, Visit.class, Visit.WITH_PET, afterId, limit);
 	}
 
 	@Override
@@ -81,4 +94,19 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
         this.em.remove(this.em.contains(visit) ? visit : this.em.merge(visit));
 	}
 
+	@Override
+	public Stream<Visit> streamAll() throws DataAccessException {
+		return JpaStreams.stream(this.em, "SELECT v FROM Visit v ORDER BY v.id", Visit.class, this.streamFetchSize);
+	}
+
+	@Override
+	public void saveAll(Collection<Visit> visits) throws DataAccessException {
+		JpaWrites.saveAll(this.em, visits);
+	}
+
+	@Override
+	public void deleteAll(Collection<Visit> visits) throws DataAccessException {
+		JpaWrites.deleteVisits(this.em, visits);
+	}
+
 }
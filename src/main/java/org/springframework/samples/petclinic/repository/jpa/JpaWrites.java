@@ -0,0 +1,275 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.User;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Saves and deletes of several entities, shared by the JPA and Spring Data JPA repositories. Most deletes run bulk
+ * statements, which bypass the persistence context and the second-level cache, so each also detaches and evicts what it
+ * removed.
+ */
+public final class JpaWrites {
+
+    private static final int USER_LOOKUP_CHUNK_SIZE = 512;
+
+    private static final String VET_SPECIALTIES_ROLE = Vet.class.getName() + ".specialties";
+
+    private JpaWrites() {
+    }
+
+    /**
+     * Persist the new entities and merge the others. The inserts are batched on flush unless their ids are taken from
+     * identity columns.
+     */
+    public static void saveAll(EntityManager em, Collection<? extends BaseEntity> entities) {
+        for (BaseEntity entity : entities) {
+            if (entity.isNew()) {
+                em.persist(entity);
+            } else {
+                em.merge(entity);
+            }
+        }
+    }
+
+    /**
+     * Persist the new users and merge the existing ones. Users are identified by their user name rather than a
+     * generated id, so the existing ones are looked up with one query per {@value #USER_LOOKUP_CHUNK_SIZE} users.
+     */
+    public static void saveUsers(EntityManager em, Collection<User> users) {
+        List<User> chunk = new ArrayList<>(Math.min(users.size(), USER_LOOKUP_CHUNK_SIZE));
+        Set<String> existing = new HashSet<>();
+        for (User user : users) {
+            chunk.add(user);
+            if (chunk.size() == USER_LOOKUP_CHUNK_SIZE) {
+                saveUserChunk(em, chunk, existing);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveUserChunk(em, chunk, existing);
+        }
+    }
+
+    /**
+     * Remove the entities one by one, cascading to their associations.
+     */
+    public static void deleteAll(EntityManager em, Collection<? extends BaseEntity> entities) {
+        for (BaseEntity entity : entities) {
+            em.remove(em.contains(entity) ? entity : em.merge(entity));
+        }
+    }
+
+    /**
+     * Delete a pet with its visits using two bulk statements.
+     */
+    public static void deletePet(EntityManager em, Pet pet) {
+        em.createNamedQuery(Visit.DELETE_BY_PET_ID).setParameter("petId", pet.getId()).executeUpdate();
+        em.createNamedQuery(Pet.DELETE_BY_ID).setParameter("id", pet.getId()).executeUpdate();
+        detachDeleted(em, pet);
+    }
+
+    /**
+     * Delete pets with their visits using two bulk statements for all of them.
+     */
+    public static void deletePets(EntityManager em, Collection<Pet> pets) {
+        List<Integer> petIds = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            petIds.add(pet.getId());
+        }
+        if (petIds.isEmpty()) {
+            return;
+        }
+        em.createQuery("DELETE FROM Visit visit WHERE visit.pet.id IN :ids").setParameter("ids", petIds).executeUpdate();
+        em.createQuery("DELETE FROM Pet pet WHERE pet.id IN :ids").setParameter("ids", petIds).executeUpdate();
+        for (Pet pet : pets) {
+            detachDeleted(em, pet);
+        }
+    }
+
+    /**
+     * Remove visits one by one, dropping each from the visits of its pet.
+     */
+    public static void deleteVisits(EntityManager em, Collection<Visit> visits) {
+        for (Visit visit : visits) {
+            Visit managed = em.contains(visit) ? visit : em.merge(visit);
+            // the pet cascades to its visits, so a visit left in its set would be re-persisted on flush
+            if (managed.getPet() != null) {
+                managed.getPet().removeVisit(managed);
+            }
+            em.remove(managed);
+        }
+    }
+
+    /**
+     * Delete a pet type with its pets and their visits using three bulk statements, without loading the pets. Only the
+     * instances the persistence context already holds are detached afterwards.
+     */
+    public static void deletePetTypeWithPets(EntityManager em, int petTypeId) {
+        List<Object> managed = findManagedOfPetType(em, petTypeId);
+        em.createNamedQuery(Visit.DELETE_BY_PET_TYPE_ID).setParameter("typeId", petTypeId).executeUpdate();
+        em.createNamedQuery(Pet.DELETE_BY_TYPE_ID).setParameter("typeId", petTypeId).executeUpdate();
+        em.createNamedQuery(PetType.DELETE_BY_ID).setParameter("id", petTypeId).executeUpdate();
+        for (Object entity : managed) {
+            if (entity instanceof Pet) {
+                detachDeleted(em, (Pet) entity);
+            } else if (em.contains(entity)) {
+                em.detach(entity);
+            }
+        }
+        em.getEntityManagerFactory().getCache().evict(PetType.class, petTypeId);
+    }
+
+    /**
+     * Delete a specialty, removing it from the vets that have it with a bulk statement.
+     */
+    public static void deleteSpecialty(EntityManager em, Specialty specialty) {
+        em.remove(em.contains(specialty) ? specialty : em.merge(specialty));
+        Integer specId = specialty.getId();
+        // naming the table keeps Hibernate from invalidating the whole second-level cache
+        em.createNamedQuery(Specialty.DELETE_VET_SPECIALTIES)
+            .setParameter("id", specId)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("vet_specialties")
+            .executeUpdate();
+        evictVetSpecialties(em);
+        em.createNamedQuery(Specialty.DELETE_BY_ID).setParameter("id", specId).executeUpdate();
+    }
+
+    /**
+     * Detach a pet whose rows were deleted by a bulk query. Removing it instead would issue a second delete, and an
+     * owner whose pets are loaded would cascade it back in on flush, so it is also dropped from those pets.
+     */
+    private static void detachDeleted(EntityManager em, Pet pet) {
+        if (!em.contains(pet)) {
+            return;
+        }
+        Owner owner = pet.getOwner();
+        if (owner != null && em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(owner, "pets")) {
+            owner.removePet(pet);
+        }
+        em.detach(pet);
+    }
+
+    private static void saveUserChunk(EntityManager em, List<User> users, Set<String> existing) {
+        List<String> usernames = new ArrayList<>(users.size());
+        for (User user : users) {
+            usernames.add(user.getUsername());
+        }
+        existing.addAll(em.createQuery("SELECT user.username FROM User user WHERE user.username IN :usernames",
+            String.class)
+            .setParameter("usernames", usernames)
+            .getResultList());
+        for (User user : users) {
+            // a user name added earlier in the same call exists by now as well
+            if (existing.add(user.getUsername())) {
+                em.persist(user);
+            } else {
+                em.merge(user);
+            }
+        }
+    }
+
+    /**
+     * Find the pet type, pets and visits of the given pet type among the entities managed by the persistence context,
+     * without initializing any proxy. Only the pets of visits whose pet is an uninitialized proxy are looked up, by id.
+     */
+    private static List<Object> findManagedOfPetType(EntityManager em, int petTypeId) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Integer typeId = petTypeId;
+        List<Object> managed = new ArrayList<>();
+        Set<Object> petIds = new HashSet<>();
+        List<Visit> visits = new ArrayList<>();
+        Set<Object> unloadedPetIds = new HashSet<>();
+        PersistenceContext context = em.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (entity instanceof PetType && typeId.equals(entry.getValue().getId())) {
+                managed.add(entity);
+            } else if (entity instanceof Pet) {
+                PetType type = ((Pet) entity).getType();
+                if (type != null && typeId.equals(util.getIdentifier(type))) {
+                    managed.add(entity);
+                    petIds.add(entry.getValue().getId());
+                }
+            } else if (entity instanceof Visit && ((Visit) entity).getPet() != null) {
+                Visit visit = (Visit) entity;
+                visits.add(visit);
+                if (!Hibernate.isInitialized(visit.getPet())) {
+                    unloadedPetIds.add(util.getIdentifier(visit.getPet()));
+                }
+            }
+        }
+        if (!unloadedPetIds.isEmpty()) {
+            petIds.addAll(em.createQuery(
+                "SELECT pet.id FROM Pet pet WHERE pet.type.id = :typeId AND pet.id IN :ids", Integer.class)
+                .setParameter("typeId", petTypeId)
+                .setParameter("ids", unloadedPetIds)
+                .getResultList());
+        }
+        for (Visit visit : visits) {
+            if (petIds.contains(util.getIdentifier(visit.getPet()))) {
+                managed.add(visit);
+            }
+        }
+        return managed;
+    }
+
+    /**
+     * Evict the cached specialties of all vets after a bulk delete from <code>vet_specialties</code>, which Hibernate
+     * does not do for collection tables. Evicted again once the transaction completes, so that the collections other
+     * transactions read in the meantime are not left in the cache either.
+     */
+    private static void evictVetSpecialties(EntityManager em) {
+        Cache cache = em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        cache.evictCollectionData(VET_SPECIALTIES_ROLE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evictCollectionData(VET_SPECIALTIES_ROLE);
+                }
+            });
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+
+@Profile("spring-data-jpa")
+public interface OwnerRepositoryOverride {
+
+	Collection<Owner> findPage(int afterId, int limit);
+
+	Collection<OwnerSummary> findAllSummaries();
+
+	Stream<Owner> streamAll();
+
+	Map<Integer, String> findAllLastNames();
+
+	void saveAll(Collection<Owner> owners);
+
+	void deleteAll(Collection<Owner> owners);
+
+}
@@ -16,8 +16,11 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
 
 /**
  * @author Vitaliy Fedoriv
@@ -29,4 +32,12 @@ public interface PetRepositoryOverride {
 	
 	void delete(Pet pet);
 
+	Collection<Pet> findPage(int afterId, int limit);
+
+	Collection<PetSummary> findAllSummaries();
+
+	void saveAll(Collection<Pet> pets);
+
+	void deleteAll(Collection<Pet> pets);
+
 }
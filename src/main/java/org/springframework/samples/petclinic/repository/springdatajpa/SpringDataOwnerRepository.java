@@ -18,6 +18,7 @@ package org.springframework.samples.petclinic.repository.springdatajpa;
 import java.util.Collection;
 
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
@@ -32,13 +33,25 @@ import org.springframework.samples.petclinic.repository.OwnerRepository;
  */
 
 @Profile("spring-data-jpa")
-public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer> {
+public interface SpringDataOwnerRepository extends OwnerRepository, Repository<Owner, Integer>, OwnerRepositoryOverride {
 
     @Override
-    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName%")
+    @EntityGraph(Owner.PETS_WITH_VISITS)
+    @Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.lastName LIKE :lastName%")
     Collection<Owner> findByLastName(@Param("lastName") String lastName);
 
     @Override
-    @Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+    @EntityGraph(Owner.PETS_WITH_VISITS)
+    @Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.id =:id")
     Owner findById(@Param("id") int id);
+
+    @Override
+    @EntityGraph(Owner.PETS_WITH_VISITS)
+    @Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.id IN :ids")
+    Collection<Owner> findByIds(@Param("ids") Collection<Integer> ids);
+
+    @Override
+    @EntityGraph(Owner.PETS_WITH_VISITS)
+    @Query("SELECT DISTINCT owner FROM Owner owner")
+    Collection<Owner> findAll();
 }
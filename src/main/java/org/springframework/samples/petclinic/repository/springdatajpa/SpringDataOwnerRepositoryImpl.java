@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.repository.jpa.JpaEntityGraphs;
+import org.springframework.samples.petclinic.repository.jpa.JpaProjections;
+import org.springframework.samples.petclinic.repository.jpa.JpaStreams;
+import org.springframework.samples.petclinic.repository.jpa.JpaWrites;
+
+@Profile("spring-data-jpa")
+public class SpringDataOwnerRepositoryImpl implements OwnerRepositoryOverride {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Value("${petclinic.stream.fetch-size:1000}")
+	private int streamFetchSize;
+
+	@Override
+	public Map<Integer, String> findAllLastNames() {
+		return JpaProjections.findOwnerLastNames(this.em);
+	}
+
+	@Override
+	public Collection<Owner> findPage(int afterId, int limit) {
+		return JpaEntityGraphs.findPage(this.em, Owner.class, Owner.PETS_WITH_VISITS, afterId, limit);
+	}
+
+	@Override
+	public Collection<OwnerSummary> findAllSummaries() {
+		return JpaProjections.findOwnerSummaries(this.em);
+	}
+
+	@Override
+	public Stream<Owner> streamAll() {
+		return JpaStreams.stream(this.em, "SELECT owner FROM Owner owner ORDER BY owner.id", Owner.class, this.streamFetchSize,
+			JpaEntityGraphs::initializePetsWithVisits);
+	}
+
+	@Override
+	public void saveAll(Collection<Owner> owners) {
+		JpaWrites.saveAll(this.em, owners);
+	}
+
+	@Override
+	public void deleteAll(Collection<Owner> owners) {
+		JpaWrites.deleteAll(this.em, owners);
+	}
+
+}
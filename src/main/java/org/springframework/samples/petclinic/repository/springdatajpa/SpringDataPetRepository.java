@@ -15,11 +15,16 @@
  */
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
@@ -37,5 +42,15 @@ public interface SpringDataPetRepository extends PetRepository, Repository<Pet,
 
     @Override
     @Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<PetType> findPetTypes() throws DataAccessException;
+
+    @Override
+    @EntityGraph(Pet.DETAIL)
+    Pet findById(int id) throws DataAccessException;
+
+    @Override
+    @EntityGraph(Pet.DETAIL)
+    @Query("SELECT DISTINCT pet FROM Pet pet")
+    Collection<Pet> findAll() throws DataAccessException;
 }
@@ -16,11 +16,17 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
+import org.springframework.samples.petclinic.repository.jpa.JpaEntityGraphs;
+import org.springframework.samples.petclinic.repository.jpa.JpaProjections;
+import org.springframework.samples.petclinic.repository.jpa.JpaWrites;
 
 /**
  * @author Vitaliy Fedoriv
@@ -35,12 +41,27 @@ public class SpringDataPetRepositoryImpl implements PetRepositoryOverride {
 
 	@Override
 	public void delete(Pet pet) {
-		String petId = pet.getId().toString();
-		this.em.createQuery("DELETE FROM Visit visit WHERE pet_id=" + petId).executeUpdate();
-		this.em.createQuery("DELETE FROM Pet pet WHERE id=" + petId).executeUpdate();
-        if (em.contains(pet)) {
-            em.remove(pet);
-        }
+		JpaWrites.deletePet(this.em, pet);
+	}
+
+	@Override
+	public Collection<Pet> findPage(int afterId, int limit) {
+		return JpaEntityGraphs.findPage(this.em, Pet.class, Pet.DETAIL, afterId, limit);
+	}
+
+	@Override
+	public Collection<PetSummary> findAllSummaries() {
+		return JpaProjections.findPetSummaries(this.em);
+	}
+
+	@Override
+	public void saveAll(Collection<Pet> pets) {
+		JpaWrites.saveAll(this.em, pets);
+	}
+
+	@Override
+	public void deleteAll(Collection<Pet> pets) {
+		JpaWrites.deletePets(this.em, pets);
 	}
 
 }
@@ -16,7 +16,13 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
@@ -29,4 +35,15 @@ import org.springframework.samples.petclinic.repository.PetTypeRepository;
 @Profile("spring-data-jpa")
 public interface SpringDataPetTypeRepository extends PetTypeRepository, Repository<PetType, Integer>, PetTypeRepositoryOverride {
 
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Collection<PetType> findAll() throws DataAccessException;
+
+    @Override
+    default PetType findByName(String name) throws DataAccessException {
+        return findFirstByNameIgnoreCaseOrderById(name);
+    }
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    PetType findFirstByNameIgnoreCaseOrderById(String name) throws DataAccessException;
 }
@@ -16,7 +16,13 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
@@ -30,4 +36,15 @@ import org.springframework.samples.petclinic.repository.SpecialtyRepository;
 @Profile("spring-data-jpa")
 public interface SpringDataSpecialtyRepository extends SpecialtyRepository, Repository<Specialty, Integer>, SpecialtyRepositoryOverride {
 
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Collection<Specialty> findAll() throws DataAccessException;
+
+    @Override
+    default Specialty findByName(String name) throws DataAccessException {
+        return findFirstByNameIgnoreCaseOrderById(name);
+    }
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Specialty findFirstByNameIgnoreCaseOrderById(String name) throws DataAccessException;
 }
@@ -21,6 +21,7 @@ import javax.persistence.PersistenceContext;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.repository.jpa.JpaWrites;
 
 /**
  * @author Vitaliy Fedoriv
@@ -35,10 +36,7 @@ public class SpringDataSpecialtyRepositoryImpl implements SpecialtyRepositoryOve
 
 	@Override
 	public void delete(Specialty specialty) {
-        this.em.remove(this.em.contains(specialty) ? specialty : this.em.merge(specialty));
-		Integer specId = specialty.getId();
-		this.em.createNativeQuery("DELETE FROM vet_specialties WHERE specialty_id=" + specId).executeUpdate();
-		this.em.createQuery("DELETE FROM Specialty specialty WHERE id=" + specId).executeUpdate();
+		JpaWrites.deleteSpecialty(this.em, specialty);
 	}
 
 }
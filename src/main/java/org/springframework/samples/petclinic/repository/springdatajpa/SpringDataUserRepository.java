@@ -6,6 +6,6 @@ import org.springframework.samples.petclinic.model.User;
 import org.springframework.samples.petclinic.repository.UserRepository;
 
 @Profile("spring-data-jpa")
-public interface SpringDataUserRepository extends UserRepository, Repository<User, Integer>  {
+public interface SpringDataUserRepository extends UserRepository, Repository<User, Integer>, UserRepositoryOverride {
 
 }
@@ -0,0 +1,23 @@
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.User;
+import org.springframework.samples.petclinic.repository.jpa.JpaWrites;
+
+@Profile("spring-data-jpa")
+public class SpringDataUserRepositoryImpl implements UserRepositoryOverride {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void saveAll(Collection<User> users) {
+        JpaWrites.saveUsers(this.em, users);
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.jpa.JpaEntityGraphs;
+
+@Profile("spring-data-jpa")
+public class SpringDataVetRepositoryImpl implements VetRepositoryOverride {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	@Override
+	public Vet findById(int id) {
+		return JpaEntityGraphs.initializeSpecialties(JpaEntityGraphs.find(this.em, Vet.class, Vet.WITH_SPECIALTIES, id));
+	}
+
+	@Override
+	public Collection<Vet> findAll() {
+		return JpaEntityGraphs.findAllVets(this.em);
+	}
+
+	@Override
+	public Collection<Vet> findPage(int afterId, int limit) {
+		return JpaEntityGraphs.findPage(this.em, Vet.class, Vet.WITH_SPECIALTIES, afterId, limit);
+	}
+
+}
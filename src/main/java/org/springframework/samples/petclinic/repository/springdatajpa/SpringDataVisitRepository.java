@@ -15,7 +15,12 @@
  */
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.Repository;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
@@ -29,4 +34,16 @@ import org.springframework.samples.petclinic.repository.VisitRepository;
 
 @Profile("spring-data-jpa")
 public interface SpringDataVisitRepository extends VisitRepository, Repository<Visit, Integer>, VisitRepositoryOverride {
+
+    @Override
+    @EntityGraph(Visit.WITH_PET)
+    List<Visit> findByPetId(Integer petId);
+
+    @Override
+    @EntityGraph(Visit.WITH_PET)
+    Visit findById(int id) throws DataAccessException;
+
+    @Override
+    @EntityGraph(Visit.WITH_PET)
+    Collection<Visit> findAll() throws DataAccessException;
 }
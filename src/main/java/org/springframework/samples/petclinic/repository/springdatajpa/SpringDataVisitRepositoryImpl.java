@@ -16,12 +16,19 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.jpa.JpaEntityGraphs;
+import org.springframework.samples.petclinic.repository.jpa.JpaStreams;
+import org.springframework.samples.petclinic.repository.jpa.JpaWrites;
 
 /**
  * @author Vitaliy Fedoriv
@@ -34,14 +41,35 @@ public class SpringDataVisitRepositoryImpl implements VisitRepositoryOverride {
 	@PersistenceContext
     private EntityManager em;
 
+    @Value("${petclinic.stream.fetch-size:1000}")
+    private int streamFetchSize;
+
 	@Override
 	public void delete(Visit visit) throws DataAccessException {
-		String visitId = visit.getId().toString();
-		this.em.createQuery("DELETE FROM Visit visit WHERE id=" + visitId).executeUpdate();
+		this.em.createNamedQuery(Visit.DELETE_BY_ID).setParameter("id", visit.getId()).executeUpdate();
         if (em.contains(visit)) {
             em.remove(visit);
         }
 	}
 
+	@Override
+	public Collection<Visit> findPage(int afterId, int limit) {
+		return JpaEntityGraphs.findPageWithToOneGraph(this.em, Visit.class, Visit.WITH_PET, afterId, limit);
+	}
+
+	@Override
+	public Stream<Visit> streamAll() {
+		return JpaStreams.stream(this.em, "SELECT v FROM Visit v ORDER BY v.id", Visit.class, this.streamFetchSize);
+	}
+
+	@Override
+	public void saveAll(Collection<Visit> visits) {
+		JpaWrites.saveAll(this.em, visits);
+	}
+
+	@Override
+	public void deleteAll(Collection<Visit> visits) {
+		JpaWrites.deleteVisits(this.em, visits);
+	}
 
 }
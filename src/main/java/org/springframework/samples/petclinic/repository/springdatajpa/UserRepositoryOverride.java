@@ -0,0 +1,13 @@
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.User;
+
+@Profile("spring-data-jpa")
+public interface UserRepositoryOverride {
+
+    void saveAll(Collection<User> users);
+
+}
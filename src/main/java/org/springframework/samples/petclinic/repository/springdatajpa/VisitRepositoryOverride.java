@@ -16,6 +16,9 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Visit;
 
@@ -29,4 +32,12 @@ public interface VisitRepositoryOverride {
 	
 	void delete(Visit visit);
 
+	Collection<Visit> findPage(int afterId, int limit);
+
+	Stream<Visit> streamAll();
+
+	void saveAll(Collection<Visit> visits);
+
+	void deleteAll(Collection<Visit> visits);
+
 }
@@ -27,6 +27,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
@@ -35,6 +36,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -48,16 +50,24 @@ import org.springframework.web.util.UriComponentsBuilder;
 @RequestMapping("/api/owners")
 public class OwnerRestController {
 
+	static final int MAX_LAST_NAME_PAGE_SIZE = 100;
+
 	@Autowired
 	private ClinicService clinicService;
 
 	@PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "/*/lastname/{lastName}", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<Owner>> getOwnersList(@PathVariable("lastName") String ownerLastName) {
+	public ResponseEntity<Collection<Owner>> getOwnersList(@PathVariable("lastName") String ownerLastName,
+			@RequestParam(value = "limit", required = false) Integer limit) {
 		if (ownerLastName == null) {
 			ownerLastName = "";
 		}
-		Collection<Owner> owners = this.clinicService.findOwnerByLastName(ownerLastName);
+		if (limit != null && (limit < 1 || limit > MAX_LAST_NAME_PAGE_SIZE)) {
+			return new ResponseEntity<Collection<Owner>>(HttpStatus.BAD_REQUEST);
+		}
+		Collection<Owner> owners = limit != null
+				? this.clinicService.findOwnerPageByLastName(ownerLastName, limit)
+				: this.clinicService.findOwnerByLastName(ownerLastName);
 		if (owners.isEmpty()) {
 			return new ResponseEntity<Collection<Owner>>(HttpStatus.NOT_FOUND);
 		}
@@ -66,12 +76,12 @@ public class OwnerRestController {
 
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<Owner>> getOwners() {
-		Collection<Owner> owners = this.clinicService.findAllOwners();
+	public ResponseEntity<Collection<OwnerSummary>> getOwners() {
+		Collection<OwnerSummary> owners = this.clinicService.findAllOwnerSummaries();
 		if (owners.isEmpty()) {
-			return new ResponseEntity<Collection<Owner>>(HttpStatus.NOT_FOUND);
+			return new ResponseEntity<Collection<OwnerSummary>>(HttpStatus.NOT_FOUND);
 		}
-		return new ResponseEntity<Collection<Owner>>(owners, HttpStatus.OK);
+		return new ResponseEntity<Collection<OwnerSummary>>(owners, HttpStatus.OK);
 	}
 
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
@@ -28,6 +28,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
@@ -64,12 +65,12 @@ public class PetRestController {
 
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
 	@RequestMapping(value = "", method = RequestMethod.GET, produces = "application/json")
-	public ResponseEntity<Collection<Pet>> getPets(){
-		Collection<Pet> pets = this.clinicService.findAllPets();
+	public ResponseEntity<Collection<PetSummary>> getPets(){
+		Collection<PetSummary> pets = this.clinicService.findAllPetSummaries();
 		if(pets.isEmpty()){
-			return new ResponseEntity<Collection<Pet>>(HttpStatus.NOT_FOUND);
+			return new ResponseEntity<Collection<PetSummary>>(HttpStatus.NOT_FOUND);
 		}
-		return new ResponseEntity<Collection<Pet>>(pets, HttpStatus.OK);
+		return new ResponseEntity<Collection<PetSummary>>(pets, HttpStatus.OK);
 	}
 
     @PreAuthorize( "hasRole(@roles.OWNER_ADMIN)" )
@@ -88,6 +89,7 @@ public class PetRestController {
 			headers.add("errors", errors.toJSON());
 			return new ResponseEntity<Pet>(headers, HttpStatus.BAD_REQUEST);
 		}
+		pet.setType(resolvePetType(pet.getType()));
 		this.clinicService.savePet(pet);
 		headers.setLocation(ucBuilder.path("/api/pets/{id}").buildAndExpand(pet.getId()).toUri());
 		return new ResponseEntity<Pet>(pet, headers, HttpStatus.CREATED);
@@ -109,7 +111,7 @@ public class PetRestController {
 		}
 		currentPet.setBirthDate(pet.getBirthDate());
 		currentPet.setName(pet.getName());
-		currentPet.setType(pet.getType());
+		currentPet.setType(resolvePetType(pet.getType()));
 		currentPet.setOwner(pet.getOwner());
 		this.clinicService.savePet(currentPet);
 		return new ResponseEntity<Pet>(currentPet, HttpStatus.NO_CONTENT);
@@ -127,5 +129,15 @@ public class PetRestController {
 		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
 	}
 
+	/**
+	 * Resolve a pet type given by name only, as in <code>"type": {"name": "cat"}</code>; any other is kept as given.
+	 */
+	private PetType resolvePetType(PetType petType) {
+		if (petType == null || petType.getId() != null || petType.getName() == null) {
+			return petType;
+		}
+		PetType named = this.clinicService.findPetTypeByName(petType.getName());
+		return named != null ? named : petType;
+	}
 
 }
@@ -17,6 +17,7 @@ package org.springframework.samples.petclinic.rest;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import javax.transaction.Transactional;
 import javax.validation.Valid;
@@ -83,6 +84,11 @@ public class VetRestController {
 			headers.add("errors", errors.toJSON());
 			return new ResponseEntity<Vet>(headers, HttpStatus.BAD_REQUEST);
 		}
+		List<Specialty> specialties = resolveSpecialties(vet.getSpecialties());
+		vet.clearSpecialties();
+		for (Specialty spec : specialties) {
+			vet.addSpecialty(spec);
+		}
 		this.clinicService.saveVet(vet);
 		headers.setLocation(ucBuilder.path("/api/vets/{id}").buildAndExpand(vet.getId()).toUri());
 		return new ResponseEntity<Vet>(vet, headers, HttpStatus.CREATED);
@@ -105,7 +111,7 @@ public class VetRestController {
 		currentVet.setFirstName(vet.getFirstName());
 		currentVet.setLastName(vet.getLastName());
 		currentVet.clearSpecialties();
-		for(Specialty spec : vet.getSpecialties()) {
+		for(Specialty spec : resolveSpecialties(vet.getSpecialties())) {
 			currentVet.addSpecialty(spec);
 		}
 		this.clinicService.saveVet(currentVet);
@@ -124,6 +130,17 @@ public class VetRestController {
 		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
 	}
 
-
+	/**
+	 * Resolve the specialties given by name only, as in <code>{"name": "surgery"}</code>; any other is kept as given.
+	 */
+	private List<Specialty> resolveSpecialties(List<Specialty> specialties) {
+		List<Specialty> resolved = new ArrayList<>(specialties.size());
+		for (Specialty spec : specialties) {
+			Specialty named = spec.getId() == null && spec.getName() != null
+				? this.clinicService.findSpecialtyByName(spec.getName()) : null;
+			resolved.add(named != null ? named : spec);
+		}
+		return resolved;
+	}
 
 }
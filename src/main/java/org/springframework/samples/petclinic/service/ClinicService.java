@@ -16,6 +16,7 @@
 package org.springframework.samples.petclinic.service;
 
 import java.util.Collection;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Owner;
@@ -24,6 +25,8 @@ import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
 
 
 /**
@@ -36,34 +39,51 @@ public interface ClinicService {
 
 	Pet findPetById(int id) throws DataAccessException;
 	Collection<Pet> findAllPets() throws DataAccessException;
+	Collection<PetSummary> findAllPetSummaries() throws DataAccessException;
+	Collection<Pet> findPetPage(int afterId, int limit) throws DataAccessException;
 	void savePet(Pet pet) throws DataAccessException;
 	void deletePet(Pet pet) throws DataAccessException;
+	void savePets(Collection<Pet> pets) throws DataAccessException;
+	void deletePets(Collection<Pet> pets) throws DataAccessException;
 
 	Collection<Visit> findVisitsByPetId(int petId);
 	Visit findVisitById(int visitId) throws DataAccessException;
 	Collection<Visit> findAllVisits() throws DataAccessException;
+	Collection<Visit> findVisitPage(int afterId, int limit) throws DataAccessException;
+	Stream<Visit> streamAllVisits() throws DataAccessException;
 	void saveVisit(Visit visit) throws DataAccessException;
 	void deleteVisit(Visit visit) throws DataAccessException;
+	void saveVisits(Collection<Visit> visits) throws DataAccessException;
+	void deleteVisits(Collection<Visit> visits) throws DataAccessException;
 	
 	Vet findVetById(int id) throws DataAccessException;
 	Collection<Vet> findVets() throws DataAccessException;
 	Collection<Vet> findAllVets() throws DataAccessException;
+	Collection<Vet> findVetPage(int afterId, int limit) throws DataAccessException;
 	void saveVet(Vet vet) throws DataAccessException;
 	void deleteVet(Vet vet) throws DataAccessException;
 	
 	Owner findOwnerById(int id) throws DataAccessException;
 	Collection<Owner> findAllOwners() throws DataAccessException;
+	Collection<OwnerSummary> findAllOwnerSummaries() throws DataAccessException;
+	Collection<Owner> findOwnerPage(int afterId, int limit) throws DataAccessException;
+	Stream<Owner> streamAllOwners() throws DataAccessException;
 	void saveOwner(Owner owner) throws DataAccessException;
 	void deleteOwner(Owner owner) throws DataAccessException;
+	void saveOwners(Collection<Owner> owners) throws DataAccessException;
+	void deleteOwners(Collection<Owner> owners) throws DataAccessException;
 	Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException;
+	Collection<Owner> findOwnerPageByLastName(String lastName, int limit) throws DataAccessException;
 
 	PetType findPetTypeById(int petTypeId);
+	PetType findPetTypeByName(String name) throws DataAccessException;
 	Collection<PetType> findAllPetTypes() throws DataAccessException;
 	Collection<PetType> findPetTypes() throws DataAccessException;
 	void savePetType(PetType petType) throws DataAccessException;
 	void deletePetType(PetType petType) throws DataAccessException;
 	
 	Specialty findSpecialtyById(int specialtyId);
+	Specialty findSpecialtyByName(String name) throws DataAccessException;
 	Collection<Specialty> findAllSpecialties() throws DataAccessException;
 	void saveSpecialty(Specialty specialty) throws DataAccessException;
 	void deleteSpecialty(Specialty specialty) throws DataAccessException;
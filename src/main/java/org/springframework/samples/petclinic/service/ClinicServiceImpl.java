@@ -15,9 +15,14 @@
  */
 package org.springframework.samples.petclinic.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -28,13 +33,17 @@ import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetRepository;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
 import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.EntityIndex;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -54,6 +63,7 @@ public class ClinicServiceImpl implements ClinicService {
     private VisitRepository visitRepository;
     private SpecialtyRepository specialtyRepository;
 	private PetTypeRepository petTypeRepository;
+	private OwnerLastNameIndex ownerLastNameIndex;
 
     @Autowired
      public ClinicServiceImpl(
@@ -62,13 +72,15 @@ public class ClinicServiceImpl implements ClinicService {
     		 OwnerRepository ownerRepository,
     		 VisitRepository visitRepository,
     		 SpecialtyRepository specialtyRepository,
-			 PetTypeRepository petTypeRepository) {
+			 PetTypeRepository petTypeRepository,
+			 @Value("${petclinic.owners.last-name-index.max-age:5m}") Duration lastNameIndexMaxAge) {
         this.petRepository = petRepository;
         this.vetRepository = vetRepository;
         this.ownerRepository = ownerRepository;
         this.visitRepository = visitRepository;
         this.specialtyRepository = specialtyRepository; 
 		this.petTypeRepository = petTypeRepository;
+		this.ownerLastNameIndex = new OwnerLastNameIndex(ownerRepository::findAllLastNames, lastNameIndexMaxAge);
     }
 
 	@Override
@@ -77,12 +89,36 @@ public class ClinicServiceImpl implements ClinicService {
 		return petRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<PetSummary> findAllPetSummaries() throws DataAccessException {
+		return petRepository.findAllSummaries();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Pet> findPetPage(int afterId, int limit) throws DataAccessException {
+		return petRepository.findPage(afterId, limit);
+	}
+
 	@Override
 	@Transactional
 	public void deletePet(Pet pet) throws DataAccessException {
 		petRepository.delete(pet);
 	}
 
+	@Override
+	@Transactional
+	public void savePets(Collection<Pet> pets) throws DataAccessException {
+		petRepository.saveAll(pets);
+	}
+
+	@Override
+	@Transactional
+	public void deletePets(Collection<Pet> pets) throws DataAccessException {
+		petRepository.deleteAll(pets);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Visit findVisitById(int visitId) throws DataAccessException {
@@ -102,6 +138,22 @@ public class ClinicServiceImpl implements ClinicService {
 		return visitRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Visit> findVisitPage(int afterId, int limit) throws DataAccessException {
+		return visitRepository.findPage(afterId, limit);
+	}
+
+	/**
+	 * The returned stream reads from an open cursor, so it has to be consumed and closed within the caller's
+	 * transaction.
+	 */
+	@Override
+	@Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+	public Stream<Visit> streamAllVisits() throws DataAccessException {
+		return visitRepository.streamAll();
+	}
+
 	@Override
 	@Transactional
 	public void deleteVisit(Visit visit) throws DataAccessException {
@@ -109,7 +161,23 @@ public class ClinicServiceImpl implements ClinicService {
 	}
 
 	@Override
-	@Transactional(readOnly = true)
+	@Transactional
+	public void saveVisits(Collection<Visit> visits) throws DataAccessException {
+		visitRepository.saveAll(visits);
+	}
+
+	@Override
+	@Transactional
+	public void deleteVisits(Collection<Visit> visits) throws DataAccessException {
+		visitRepository.deleteAll(visits);
+	}
+
+	/**
+	 * Joins the caller's transaction, but does not start one of its own: outside of transactions the JDBC
+	 * repositories can read the sub-queries of the lookup concurrently.
+	 */
+	@Override
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 	public Vet findVetById(int id) throws DataAccessException {
 		Vet vet = null;
 		try {
@@ -127,6 +195,12 @@ public class ClinicServiceImpl implements ClinicService {
 		return vetRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Vet> findVetPage(int afterId, int limit) throws DataAccessException {
+		return vetRepository.findPage(afterId, limit);
+	}
+
 	@Override
 	@Transactional
 	public void saveVet(Vet vet) throws DataAccessException {
@@ -145,10 +219,54 @@ public class ClinicServiceImpl implements ClinicService {
 		return ownerRepository.findAll();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<OwnerSummary> findAllOwnerSummaries() throws DataAccessException {
+		return ownerRepository.findAllSummaries();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Owner> findOwnerPage(int afterId, int limit) throws DataAccessException {
+		return ownerRepository.findPage(afterId, limit);
+	}
+
+	/**
+	 * The returned stream reads from an open cursor, so it has to be consumed and closed within the caller's
+	 * transaction.
+	 */
+	@Override
+	@Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+	public Stream<Owner> streamAllOwners() throws DataAccessException {
+		return ownerRepository.streamAll();
+	}
+
 	@Override
 	@Transactional
 	public void deleteOwner(Owner owner) throws DataAccessException {
+		ownerLastNameIndex.ensureLoaded();
 		ownerRepository.delete(owner);
+		ownerLastNameIndex.remove(owner.getId());
+	}
+
+	@Override
+	@Transactional
+	public void saveOwners(Collection<Owner> owners) throws DataAccessException {
+		ownerLastNameIndex.ensureLoaded();
+		ownerRepository.saveAll(owners);
+		for (Owner owner : owners) {
+			ownerLastNameIndex.put(owner.getId(), owner.getLastName());
+		}
+	}
+
+	@Override
+	@Transactional
+	public void deleteOwners(Collection<Owner> owners) throws DataAccessException {
+		ownerLastNameIndex.ensureLoaded();
+		ownerRepository.deleteAll(owners);
+		for (Owner owner : owners) {
+			ownerLastNameIndex.remove(owner.getId());
+		}
 	}
 
 	@Override
@@ -164,6 +282,12 @@ public class ClinicServiceImpl implements ClinicService {
 		return petType;
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public PetType findPetTypeByName(String name) throws DataAccessException {
+		return petTypeRepository.findByName(name);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<PetType> findAllPetTypes() throws DataAccessException {
@@ -195,6 +319,12 @@ public class ClinicServiceImpl implements ClinicService {
 		return specialty;
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Specialty findSpecialtyByName(String name) throws DataAccessException {
+		return specialtyRepository.findByName(name);
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Specialty> findAllSpecialties() throws DataAccessException {
@@ -219,8 +349,12 @@ public class ClinicServiceImpl implements ClinicService {
 		return petRepository.findPetTypes();
 	}
 
+	/**
+	 * Joins the caller's transaction, but does not start one of its own: outside of transactions the JDBC
+	 * repositories can read the sub-queries of the lookup concurrently.
+	 */
 	@Override
-	@Transactional(readOnly = true)
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 	public Owner findOwnerById(int id) throws DataAccessException {
 		Owner owner = null;
 		try {
@@ -269,14 +403,41 @@ public class ClinicServiceImpl implements ClinicService {
 	@Override
 	@Transactional
 	public void saveOwner(Owner owner) throws DataAccessException {
+		ownerLastNameIndex.ensureLoaded();
 		ownerRepository.save(owner);
-		
+		ownerLastNameIndex.put(owner.getId(), owner.getLastName());
 	}
 
+	/**
+	 * Matches last names case-insensitively through the in-memory {@link OwnerLastNameIndex}, so only the matching
+	 * owners are read from the database.
+	 */
 	@Override
 	@Transactional(readOnly = true)
 	public Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException {
-		return ownerRepository.findByLastName(lastName);
+		return findOwnerPageByLastName(lastName, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns at most <code>limit</code> owners whose last name starts with the given name, ignoring case, ordered by
+	 * last name; only those owners are loaded with their pets and visits.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Collection<Owner> findOwnerPageByLastName(String lastName, int limit) throws DataAccessException {
+		List<Integer> ids = ownerLastNameIndex.findIdsByPrefix(lastName, limit);
+		List<Owner> owners = new ArrayList<>(ids.size());
+		if (ids.isEmpty()) {
+			return owners;
+		}
+		EntityIndex<Owner> ownersById = EntityIndex.of(ownerRepository.findByIds(ids), Owner.class);
+		for (Integer id : ids) {
+			Owner owner = ownersById.find(id);
+			if (owner != null) {
+				owners.add(owner);
+			}
+		}
+		return owners;
 	}
 
 	@Override
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory, case-insensitive index of owner last names answering prefix searches with owner ids, so that a search
+ * only has to load the owners it returns.
+ * <p>
+ * Entries are kept in a skip list ordered by lower-cased last name and id, so a prefix search is a range scan over the
+ * entries between the prefix and the prefix followed by {@link Character#MAX_VALUE}. The index is loaded on first use
+ * and then maintained incrementally through {@link #put} and {@link #remove}. Changes made inside a transaction are
+ * only applied once it commits; until then they are overlaid on the searches of that transaction alone.
+ * <p>
+ * Changes made to the database by anything else than {@link #put} and {@link #remove}, such as another application
+ * instance, are only picked up when the index is reloaded, which happens on the first use after it has reached the
+ * maximum age.
+ * <p>
+ * Searches are lock-free; loads and changes are serialized.
+ *
+ * @see ClinicService#findOwnerByLastName
+ */
+class OwnerLastNameIndex {
+
+    private final Supplier<Map<Integer, String>> loader;
+
+    private final long maxAgeNanos;
+
+    private volatile NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    private Map<Integer, Entry> entriesById = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    private volatile long loadedAt;
+
+    /**
+     * @param loader supplies the last names of all owners by id when the index is loaded
+     * @param maxAge the age after which the index is reloaded on its next use; zero or negative never reloads it
+     */
+    OwnerLastNameIndex(Supplier<Map<Integer, String>> loader, Duration maxAge) {
+        this.loader = loader;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * Loads the index if this has not happened yet or if it has reached its maximum age. Call it before changing
+     * owners in the database, so that the load does not pick up changes that have not been committed yet; a
+     * transaction that has already registered changes never loads the index.
+     */
+    void ensureLoaded() {
+        if (!isCurrent() && pendingChanges() == null) {
+            synchronized (this) {
+                if (!isCurrent()) {
+                    NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+                    Map<Integer, Entry> entriesById = new HashMap<>();
+                    this.loader.get().forEach((id, lastName) -> {
+                        Entry entry = new Entry(normalize(lastName), id);
+                        entries.add(entry);
+                        entriesById.put(id, entry);
+                    });
+                    this.entries = entries;
+                    this.entriesById = entriesById;
+                    this.loadedAt = System.nanoTime();
+                    this.loaded = true;
+                }
+            }
+        }
+    }
+
+    private boolean isCurrent() {
+        return this.loaded && (this.maxAgeNanos <= 0 || System.nanoTime() - this.loadedAt < this.maxAgeNanos);
+    }
+
+    /**
+     * Returns the ids of the owners whose last name starts with the given prefix, ignoring case, ordered by last name
+     * and id.
+     *
+     * @param prefix the last name prefix; the empty string matches all owners
+     * @param limit  the maximum number of ids to return
+     */
+    List<Integer> findIdsByPrefix(String prefix, int limit) {
+        ensureLoaded();
+        String key = normalize(prefix);
+        PendingChanges pending = pendingChanges();
+        Map<Integer, String> changes = pending != null ? pending.lastNames : Collections.emptyMap();
+        List<Entry> found = new ArrayList<>();
+        for (Entry entry : this.entries.subSet(new Entry(key, Integer.MIN_VALUE), true,
+            new Entry(key + Character.MAX_VALUE, Integer.MIN_VALUE), false)) {
+            if (found.size() == limit) {
+                break;
+            }
+            if (!changes.containsKey(entry.id)) {
+                found.add(entry);
+            }
+        }
+        if (!changes.isEmpty()) {
+            changes.forEach((id, lastName) -> {
+                if (lastName != null && lastName.startsWith(key)) {
+                    found.add(new Entry(lastName, id));
+                }
+            });
+            Collections.sort(found);
+        }
+        List<Integer> ids = new ArrayList<>(Math.min(found.size(), limit));
+        for (Entry entry : found) {
+            if (ids.size() == limit) {
+                break;
+            }
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Adds or renames the owner with the given id.
+     */
+    void put(int id, String lastName) {
+        change(id, normalize(lastName));
+    }
+
+    /**
+     * Removes the owner with the given id.
+     */
+    void remove(int id) {
+        change(id, null);
+    }
+
+    private void change(int id, String lastName) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Collections.singletonMap(id, lastName));
+            return;
+        }
+        PendingChanges pending = pendingChanges();
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.lastNames.put(id, lastName);
+    }
+
+    /**
+     * @return the changes registered by the current transaction, or <code>null</code>
+     */
+    private PendingChanges pendingChanges() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (synchronization instanceof PendingChanges && ((PendingChanges) synchronization).index() == this) {
+                    return (PendingChanges) synchronization;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies committed changes, given as normalized last names by id, <code>null</code> for removed owners. Changes
+     * made before the index is loaded are skipped, since the load reads them from the database.
+     */
+    private synchronized void apply(Map<Integer, String> lastNames) {
+        if (!this.loaded) {
+            return;
+        }
+        lastNames.forEach((id, lastName) -> {
+            Entry entry = lastName != null ? new Entry(lastName, id) : null;
+            Entry previous = entry != null ? this.entriesById.put(id, entry) : this.entriesById.remove(id);
+            if (previous != null) {
+                this.entries.remove(previous);
+            }
+            if (entry != null) {
+                this.entries.add(entry);
+            }
+        });
+    }
+
+    private static String normalize(String lastName) {
+        return lastName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The changes of one transaction, applied to the index once it commits.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final Map<Integer, String> lastNames = new HashMap<>();
+
+        OwnerLastNameIndex index() {
+            return OwnerLastNameIndex.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            apply(this.lastNames);
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private final String lastName;
+
+        private final int id;
+
+        Entry(String lastName, int id) {
+            this.lastName = lastName;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = this.lastName.compareTo(other.lastName);
+            return result != 0 ? result : Integer.compare(this.id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry && compareTo((Entry) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.lastName.hashCode() + this.id;
+        }
+    }
+
+}
@@ -1,8 +1,12 @@
 package org.springframework.samples.petclinic.service;
 
+import java.util.Collection;
+
 import org.springframework.samples.petclinic.model.User;
 
 public interface UserService {
 
     void saveUser(User user) throws Exception;
+
+    void saveUsers(Collection<User> users) throws Exception;
 }
@@ -1,5 +1,7 @@
 package org.springframework.samples.petclinic.service;
 
+import java.util.Collection;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.User;
 import org.springframework.samples.petclinic.model.Role;
@@ -16,6 +18,20 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void saveUser(User user) throws Exception {
+        prepareRoles(user);
+        userRepository.save(user);
+    }
+
+    @Override
+    @Transactional
+    public void saveUsers(Collection<User> users) throws Exception {
+        for (User user : users) {
+            prepareRoles(user);
+        }
+        userRepository.saveAll(users);
+    }
+
+    private void prepareRoles(User user) throws Exception {
 
         if(user.getRoles() == null || user.getRoles().isEmpty()) {
             throw new Exception("User must have at least a role set!");
@@ -30,7 +46,5 @@ public class UserServiceImpl implements UserService {
                 role.setUser(user);
             }
         }
-
-        userRepository.save(user);
     }
 }
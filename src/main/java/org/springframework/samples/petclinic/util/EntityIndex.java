@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.util;
+
+import java.util.Collection;
+
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Id-indexed collection of entities, meant to be built once per query and then used for constant-time lookups instead
+ * of {@link EntityUtils#getById} scans. Backed by an open-addressing hash table keyed by primitive <code>int</code>
+ * ids, so lookups neither box the id nor allocate.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <T> the entity type
+ * @see EntityUtils#getById
+ */
+public class EntityIndex<T extends BaseEntity> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final Class<T> entityClass;
+
+    private int[] ids;
+
+    private Object[] entities;
+
+    private int size;
+
+    public EntityIndex(Class<T> entityClass) {
+        this(entityClass, MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param entityClass  the entity class, reported by {@link #getById} when an id is missing
+     * @param expectedSize the number of entities the index should hold without resizing
+     */
+    public EntityIndex(Class<T> entityClass, int expectedSize) {
+        this.entityClass = entityClass;
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.ids = new int[capacity];
+        this.entities = new Object[capacity];
+    }
+
+    /**
+     * Build an index over the given entities.
+     *
+     * @param entities    the entities to index; all of them must have an id
+     * @param entityClass the entity class
+     */
+    public static <T extends BaseEntity> EntityIndex<T> of(Collection<? extends T> entities, Class<T> entityClass) {
+        EntityIndex<T> index = new EntityIndex<>(entityClass, entities.size());
+        for (T entity : entities) {
+            index.add(entity);
+        }
+        return index;
+    }
+
+    /**
+     * Add the given entity, replacing any entity previously indexed under the same id.
+     *
+     * @param entity the entity to add; must have an id
+     */
+    public void add(T entity) {
+        int id = entity.getId();
+        int slot = slot(id);
+        if (this.entities[slot] == null) {
+            this.ids[slot] = id;
+            this.size++;
+        }
+        this.entities[slot] = entity;
+        if (this.size * 2 > this.entities.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Look up the entity with the given id.
+     *
+     * @param entityId the entity id to look up
+     * @return the found entity, or <code>null</code> if none is indexed under that id
+     */
+    @SuppressWarnings("unchecked")
+    public T find(int entityId) {
+        return (T) this.entities[slot(entityId)];
+    }
+
+    /**
+     * Look up the entity with the given id. Same contract as {@link EntityUtils#getById}.
+     *
+     * @param entityId the entity id to look up
+     * @return the found entity
+     * @throws ObjectRetrievalFailureException if the entity was not found
+     */
+    public T getById(int entityId) throws ObjectRetrievalFailureException {
+        T entity = find(entityId);
+        if (entity == null || !this.entityClass.isInstance(entity)) {
+            throw new ObjectRetrievalFailureException(this.entityClass, entityId);
+        }
+        return entity;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Find the slot holding the given id, or the empty slot where it would be inserted.
+     */
+    private int slot(int id) {
+        int mask = this.entities.length - 1;
+        int slot = mix(id) & mask;
+        while (this.entities[slot] != null && this.ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        int[] oldIds = this.ids;
+        Object[] oldEntities = this.entities;
+        this.ids = new int[oldIds.length * 2];
+        this.entities = new Object[oldEntities.length * 2];
+        for (int i = 0; i < oldEntities.length; i++) {
+            if (oldEntities[i] != null) {
+                int slot = slot(oldIds[i]);
+                this.ids[slot] = oldIds[i];
+                this.entities[slot] = oldEntities[i];
+            }
+        }
+    }
+
+    /**
+     * Spread sequential database ids over the table (Fibonacci hashing).
+     */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
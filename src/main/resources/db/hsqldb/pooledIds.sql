@@ -0,0 +1,19 @@
+-- Run after initDB.sql when ids are reserved in blocks with META-INF/pooled-ids.xml (see
+-- BaseEntity.POOLED_ID_GENERATOR). The identity columns do not draw from these sequences,
+-- so the tables must then only be written through JPA.
+
+DROP SEQUENCE vets_pooled_id_seq IF EXISTS;
+DROP SEQUENCE specialties_pooled_id_seq IF EXISTS;
+DROP SEQUENCE types_pooled_id_seq IF EXISTS;
+DROP SEQUENCE owners_pooled_id_seq IF EXISTS;
+DROP SEQUENCE pets_pooled_id_seq IF EXISTS;
+DROP SEQUENCE visits_pooled_id_seq IF EXISTS;
+DROP SEQUENCE roles_pooled_id_seq IF EXISTS;
+
+CREATE SEQUENCE vets_pooled_id_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE specialties_pooled_id_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE types_pooled_id_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE owners_pooled_id_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE pets_pooled_id_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE visits_pooled_id_seq AS INTEGER START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE roles_pooled_id_seq AS INTEGER START WITH 100 INCREMENT BY 50;
@@ -0,0 +1,39 @@
+-- Run after initDB.sql when ids are reserved in blocks with META-INF/pooled-ids.xml (see
+-- BaseEntity.POOLED_ID_GENERATOR). MySQL has no sequences, so JPA reserves blocks of 50
+-- ids from these tables instead. They do not advance the AUTO_INCREMENT counters, so the
+-- tables must then only be written through JPA.
+
+CREATE TABLE IF NOT EXISTS vets_pooled_id_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO vets_pooled_id_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM vets_pooled_id_seq);
+
+CREATE TABLE IF NOT EXISTS specialties_pooled_id_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO specialties_pooled_id_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM specialties_pooled_id_seq);
+
+CREATE TABLE IF NOT EXISTS types_pooled_id_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO types_pooled_id_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM types_pooled_id_seq);
+
+CREATE TABLE IF NOT EXISTS owners_pooled_id_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO owners_pooled_id_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM owners_pooled_id_seq);
+
+CREATE TABLE IF NOT EXISTS pets_pooled_id_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO pets_pooled_id_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM pets_pooled_id_seq);
+
+CREATE TABLE IF NOT EXISTS visits_pooled_id_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO visits_pooled_id_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM visits_pooled_id_seq);
+
+CREATE TABLE IF NOT EXISTS roles_pooled_id_seq (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO roles_pooled_id_seq SELECT 100 FROM DUAL WHERE NOT EXISTS (SELECT * FROM roles_pooled_id_seq);
@@ -0,0 +1,11 @@
+-- Run after initDB.sql when ids are reserved in blocks with META-INF/pooled-ids.xml (see
+-- BaseEntity.POOLED_ID_GENERATOR). The SERIAL columns do not draw from these sequences,
+-- so the tables must then only be written through JPA.
+
+CREATE SEQUENCE IF NOT EXISTS vets_pooled_id_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS specialties_pooled_id_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS types_pooled_id_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS owners_pooled_id_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS pets_pooled_id_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS visits_pooled_id_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS roles_pooled_id_seq START WITH 100 INCREMENT BY 50;
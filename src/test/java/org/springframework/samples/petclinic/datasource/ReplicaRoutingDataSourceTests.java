@@ -0,0 +1,125 @@
+package org.springframework.samples.petclinic.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests for {@link ReplicaRoutingDataSource}, using separate in-memory HSQLDB databases as primary and replicas.
+ * Each database holds a one-row <code>origin</code> table naming it.
+ */
+public class ReplicaRoutingDataSourceTests {
+
+    private final AtomicReference<String> session = new AtomicReference<>();
+
+    private DataSource primary;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate writeTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:routing-" + name, "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE origin IF EXISTS");
+        jdbcTemplate.execute("CREATE TABLE origin (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO origin VALUES (?)", name);
+        return dataSource;
+    }
+
+    private void setUp(Duration readYourWritesWindow, DataSource... replicas) {
+        this.routingDataSource = new ReplicaRoutingDataSource(
+            this.primary, Arrays.asList(replicas), readYourWritesWindow, this.session::get);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(this.routingDataSource);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    private String origin(TransactionTemplate transaction) {
+        return transaction.execute(status -> this.jdbcTemplate.queryForObject("SELECT name FROM origin", String.class));
+    }
+
+    @Before
+    public void createPrimary() {
+        this.primary = database("primary");
+    }
+
+    @After
+    public void closeRoutingDataSource() {
+        this.routingDataSource.close();
+    }
+
+    @Test
+    public void shouldRouteReadOnlyTransactionsToReplicasRoundRobin() {
+        setUp(Duration.ZERO, database("replica1"), database("replica2"));
+
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("replica1");
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("replica2");
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("replica1");
+        assertThat(origin(this.writeTransaction)).isEqualTo("primary");
+        assertThat(this.jdbcTemplate.queryForObject("SELECT name FROM origin", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    public void shouldSkipUnhealthyReplicasAndFallBackToPrimary() {
+        DataSource broken = new DriverManagerDataSource("jdbc:hsqldb:hsql://localhost:1/missing", "sa", "");
+        setUp(Duration.ZERO, broken, database("replica1"));
+
+        this.routingDataSource.checkHealth();
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("replica1");
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("replica1");
+
+        setUp(Duration.ZERO, broken);
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("primary");
+    }
+
+    @Test
+    public void shouldReadOwnWritesFromPrimaryWithinWindow() {
+        setUp(Duration.ofMinutes(1), database("replica1"));
+
+        this.session.set("alice");
+        this.writeTransaction.execute(status -> this.jdbcTemplate.update("UPDATE origin SET name = 'primary'"));
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("primary");
+
+        this.session.set("bob");
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("replica1");
+    }
+
+    @Test
+    public void shouldReadFromReplicaOnceWindowHasPassed() throws InterruptedException {
+        setUp(Duration.ofMillis(1), database("replica1"));
+
+        this.session.set("alice");
+        this.writeTransaction.execute(status -> this.jdbcTemplate.update("UPDATE origin SET name = 'primary'"));
+        Thread.sleep(5);
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("replica1");
+    }
+
+    @Test
+    public void shouldRouteToPrimaryWithoutReplicas() {
+        setUp(Duration.ZERO);
+
+        assertThat(origin(this.readOnlyTransaction)).isEqualTo("primary");
+    }
+
+}
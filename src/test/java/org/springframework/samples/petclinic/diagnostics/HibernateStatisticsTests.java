@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.diagnostics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.rest.HibernateStatisticsRestController;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Integration test of the Hibernate statistics module on the jpa profile.
+ */
+@SpringBootTest(properties = {HibernateStatisticsConfig.ENABLED_PROPERTY + "=true", "spring.jmx.enabled=true"})
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles({"jpa", "hsqldb"})
+public class HibernateStatisticsTests {
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Autowired
+    private HibernateStatisticsMonitor monitor;
+
+    @Autowired
+    private HibernateStatisticsRestController restController;
+
+    @After
+    public void stopRequestStatistics() {
+        RequestStatistics.stop();
+    }
+
+    @Test
+    public void shouldCountEntitiesAndStatementsOfRequest() {
+        RequestStatistics statistics = RequestStatistics.start();
+        this.clinicService.findOwnerById(6);
+        assertThat(statistics.getEntitiesLoaded()).isGreaterThanOrEqualTo(3);
+        assertThat(statistics.getStatements()).isGreaterThanOrEqualTo(1);
+        assertThat(statistics.getFlushes()).isZero();
+
+        PetType petType = new PetType();
+        petType.setName("statistics");
+        this.clinicService.savePetType(petType);
+        assertThat(statistics.getFlushes()).isGreaterThanOrEqualTo(1);
+        this.clinicService.deletePetType(petType);
+    }
+
+    @Test
+    public void shouldNotCountOutsideOfRequests() {
+        RequestStatistics statistics = RequestStatistics.start();
+        RequestStatistics.stop();
+        this.clinicService.findOwnerById(6);
+        assertThat(statistics.getEntitiesLoaded()).isZero();
+        assertThat(statistics.getStatements()).isZero();
+    }
+
+    @Test
+    public void shouldCountWithinFilteredRequests() throws Exception {
+        long[] entitiesLoaded = new long[1];
+        new RequestStatisticsFilter(Duration.ZERO).doFilter(new MockHttpServletRequest("GET", "/api/owners/6"),
+            new MockHttpServletResponse(), (request, response) -> {
+                this.clinicService.findOwnerById(6);
+                entitiesLoaded[0] = RequestStatistics.current().getEntitiesLoaded();
+            });
+        assertThat(entitiesLoaded[0]).isGreaterThanOrEqualTo(3);
+        assertThat(RequestStatistics.current()).isNull();
+    }
+
+    @Test
+    public void shouldPublishStatisticsThroughJmx() throws Exception {
+        this.clinicService.findAllOwners();
+        assertThat(this.monitor.getEntityLoadCount()).isPositive();
+        assertThat(this.monitor.getQueryExecutionCount()).isPositive();
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(
+            new ObjectName("petclinic:type=HibernateStatistics"), "EntityLoadCount")).isInstanceOf(Long.class);
+    }
+
+    @Test
+    @WithMockUser(roles="ADMIN")
+    public void shouldServeStatisticsSnapshot() throws Exception {
+        this.clinicService.findAllOwners();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(this.restController).build();
+        mockMvc.perform(get("/api/diagnostics/hibernate").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.entityLoadCount").isNumber())
+            .andExpect(jsonPath("$.secondLevelCacheHitRatio").isNumber())
+            .andExpect(jsonPath("$.queries[0].executionMaxTime").isNumber());
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests for {@link JdbcFanOut}, checking when queries are forked and that forked queries are cancelled on timeout.
+ */
+public class JdbcFanOutTests {
+
+    private final JdbcFanOut fanOut = new JdbcFanOut(1, Duration.ofMillis(100));
+
+    @After
+    public void close() {
+        this.fanOut.close();
+    }
+
+    @Test
+    public void shouldForkOnlyOutsideOfTransactions() {
+        assertThat(this.fanOut.isActive()).isTrue();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            // the synchronization of a method joining no transaction
+            assertThat(this.fanOut.isActive()).isTrue();
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            assertThat(this.fanOut.isActive()).isFalse();
+            Thread caller = Thread.currentThread();
+            assertThat(this.fanOut.fork(Thread::currentThread).get()).isSameAs(caller);
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    public void shouldRunOnCallingThreadWhenDisabled() {
+        JdbcFanOut disabled = new JdbcFanOut(0, Duration.ofMillis(100));
+        assertThat(disabled.isActive()).isFalse();
+        assertThat(disabled.fork(Thread::currentThread).get()).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    public void shouldCancelForkedQueryOnTimeout() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Supplier<Object> result = this.fanOut.fork(() -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return null;
+        });
+        assertThatThrownBy(result::get).isInstanceOf(QueryTimeoutException.class);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hsqldb.jdbc.JDBCDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.PetType;
+
+/**
+ * JMH benchmark comparing {@link BeanPropertyRowMapper} with the column-index row mappers on full scans of an
+ * in-memory HSQLDB <code>owners</code> and <code>types</code> table. Each operation maps every row once.
+ * <p>
+ * Not part of the unit test run; start it from the IDE or through <code>org.openjdk.jmh.Main</code> on the test
+ * classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RowMapperBenchmark {
+
+    private static final String OWNERS_SELECT = "SELECT id, first_name, last_name, address, city, telephone FROM owners";
+
+    private static final String TYPES_SELECT = "SELECT id, name FROM types";
+
+    @Param({"1000000"})
+    private int rows;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new JDBCDriver(),
+            "jdbc:hsqldb:mem:rowmapperbenchmark", "sa", "");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.execute("CREATE TABLE owners (id INTEGER PRIMARY KEY, first_name VARCHAR(30), " +
+            "last_name VARCHAR(30), address VARCHAR(255), city VARCHAR(80), telephone VARCHAR(20))");
+        this.jdbcTemplate.execute("CREATE TABLE types (id INTEGER PRIMARY KEY, name VARCHAR(80))");
+        List<Object[]> owners = new ArrayList<>();
+        List<Object[]> types = new ArrayList<>();
+        for (int id = 1; id <= this.rows; id++) {
+            owners.add(new Object[]{id, "George" + id, "Franklin" + id, id + " W. Liberty St.", "Madison", "6085551023"});
+            types.add(new Object[]{id, "type" + id});
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO owners VALUES (?, ?, ?, ?, ?, ?)", owners);
+        this.jdbcTemplate.batchUpdate("INSERT INTO types VALUES (?, ?)", types);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private void scan(String sql, RowMapper<?> rowMapper, Blackhole blackhole) {
+        int[] rowNum = new int[1];
+        this.jdbcTemplate.query(sql, (RowCallbackHandler) rs -> blackhole.consume(rowMapper.mapRow(rs, rowNum[0]++)));
+    }
+
+    @Benchmark
+    public void ownersBeanProperty(Blackhole blackhole) {
+        scan(OWNERS_SELECT, BeanPropertyRowMapper.newInstance(Owner.class), blackhole);
+    }
+
+    @Benchmark
+    public void ownersColumnIndex(Blackhole blackhole) {
+        scan(OWNERS_SELECT, new JdbcOwnerRowMapper(), blackhole);
+    }
+
+    @Benchmark
+    public void petTypesBeanProperty(Blackhole blackhole) {
+        scan(TYPES_SELECT, BeanPropertyRowMapper.newInstance(PetType.class), blackhole);
+    }
+
+    @Benchmark
+    public void petTypesColumnIndex(Blackhole blackhole) {
+        scan(TYPES_SELECT, new JdbcPetTypeRowMapper(), blackhole);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RowMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -23,9 +23,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -38,6 +41,10 @@ import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.projection.OwnerPetSummary;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.PetTypeSummary;
+import org.springframework.samples.petclinic.model.projection.VisitSummary;
 import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -139,6 +146,19 @@ public class OwnerRestControllerTests {
         return visit;
     }
 
+    private static Collection<OwnerSummary> summariesOf(List<Owner> owners) {
+        return owners.stream()
+            .map(owner -> new OwnerSummary(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+                owner.getCity(), owner.getTelephone(), owner.getPets().stream()
+                    .map(pet -> new OwnerPetSummary(pet.getId(), pet.getName(), pet.getBirthDate(),
+                        new PetTypeSummary(pet.getType().getId(), pet.getType().getName()), owner.getId(),
+                        pet.getVisits().stream()
+                            .map(visit -> new VisitSummary(visit.getId(), visit.getDate(), visit.getDescription(), pet.getId()))
+                            .collect(Collectors.toList())))
+                    .collect(Collectors.toList())))
+            .collect(Collectors.toList());
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetOwnerSuccess() throws Exception {
@@ -176,6 +196,32 @@ public class OwnerRestControllerTests {
             .andExpect(jsonPath("$.[1].firstName").value("Harold"));
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnersListPageSuccess() throws Exception {
+    	owners.remove(0);
+    	owners.remove(1);
+    	owners.remove(1);
+    	given(this.clinicService.findOwnerPageByLastName("dav", 1)).willReturn(owners);
+        this.mockMvc.perform(get("/api/owners/*/lastname/dav?limit=1")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetOwnersListPageInvalidLimit() throws Exception {
+        this.mockMvc.perform(get("/api/owners/*/lastname/dav?limit=0")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/api/owners/*/lastname/dav?limit=" + (OwnerRestController.MAX_LAST_NAME_PAGE_SIZE + 1))
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetOwnersListNotFound() throws Exception {
@@ -191,7 +237,7 @@ public class OwnerRestControllerTests {
     public void testGetAllOwnersSuccess() throws Exception {
     	owners.remove(0);
     	owners.remove(1);
-    	given(this.clinicService.findAllOwners()).willReturn(owners);
+    	given(this.clinicService.findAllOwnerSummaries()).willReturn(summariesOf(owners));
         this.mockMvc.perform(get("/api/owners/")
         	.accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
@@ -202,11 +248,32 @@ public class OwnerRestControllerTests {
             .andExpect(jsonPath("$.[1].firstName").value("Harold"));
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testGetAllOwnersWithPetsSuccess() throws Exception {
+    	Owner owner = owners.get(0);
+    	Pet pet = owner.getPets().get(0);
+    	given(this.clinicService.findAllOwnerSummaries()).willReturn(summariesOf(owners.subList(0, 1)));
+        this.mockMvc.perform(get("/api/owners/")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.[0].id").value(1))
+            .andExpect(jsonPath("$.[0].telephone").value("6085551023"))
+            .andExpect(jsonPath("$.[0].pets[0].id").value(1))
+            .andExpect(jsonPath("$.[0].pets[0].name").value("Rosy"))
+            .andExpect(jsonPath("$.[0].pets[0].birthDate").value(new SimpleDateFormat("yyyy/MM/dd").format(pet.getBirthDate())))
+            .andExpect(jsonPath("$.[0].pets[0].type.name").value("dog"))
+            .andExpect(jsonPath("$.[0].pets[0].owner").value(1))
+            .andExpect(jsonPath("$.[0].pets[0].visits[0].description").value("test" + 1))
+            .andExpect(jsonPath("$.[0].pets[0].visits[0].pet").value(1));
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetAllOwnersNotFound() throws Exception {
     	owners.clear();
-    	given(this.clinicService.findAllOwners()).willReturn(owners);
+    	given(this.clinicService.findAllOwnerSummaries()).willReturn(summariesOf(owners));
         this.mockMvc.perform(get("/api/owners/")
         	.accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
@@ -25,9 +25,13 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -39,6 +43,9 @@ import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
+import org.springframework.samples.petclinic.model.projection.PetTypeSummary;
 import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -50,6 +57,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 
 /**
@@ -110,6 +118,19 @@ public class PetRestControllerTests {
     	pets.add(pet);
     }
 
+    private static Collection<PetSummary> summariesOf(List<Pet> pets) {
+        return pets.stream()
+            .map(pet -> {
+                Owner owner = pet.getOwner();
+                return new PetSummary(pet.getId(), pet.getName(), pet.getBirthDate(),
+                    new PetTypeSummary(pet.getType().getId(), pet.getType().getName()),
+                    new OwnerSummary(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+                        owner.getCity(), owner.getTelephone()),
+                    Collections.emptyList());
+            })
+            .collect(Collectors.toList());
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetPetSuccess() throws Exception {
@@ -134,13 +155,19 @@ public class PetRestControllerTests {
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetAllPetsSuccess() throws Exception {
-    	given(this.clinicService.findAllPets()).willReturn(pets);
+    	given(this.clinicService.findAllPetSummaries()).willReturn(summariesOf(pets));
         this.mockMvc.perform(get("/api/pets/")
         	.accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
             .andExpect(content().contentType("application/json"))
             .andExpect(jsonPath("$.[0].id").value(3))
             .andExpect(jsonPath("$.[0].name").value("Rosy"))
+            .andExpect(jsonPath("$.[0].birthDate").value(new SimpleDateFormat("yyyy/MM/dd").format(pets.get(0).getBirthDate())))
+            .andExpect(jsonPath("$.[0].type.name").value("dog"))
+            .andExpect(jsonPath("$.[0].owner.id").value(1))
+            .andExpect(jsonPath("$.[0].owner.firstName").value("Eduardo"))
+            .andExpect(jsonPath("$.[0].owner.pets").doesNotExist())
+            .andExpect(jsonPath("$.[0].visits").isEmpty())
             .andExpect(jsonPath("$.[1].id").value(4))
             .andExpect(jsonPath("$.[1].name").value("Jewel"));
     }
@@ -149,7 +176,7 @@ public class PetRestControllerTests {
     @WithMockUser(roles="OWNER_ADMIN")
     public void testGetAllPetsNotFound() throws Exception {
     	pets.clear();
-    	given(this.clinicService.findAllPets()).willReturn(pets);
+    	given(this.clinicService.findAllPetSummaries()).willReturn(summariesOf(pets));
         this.mockMvc.perform(get("/api/pets/")
         	.accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
@@ -167,6 +194,22 @@ public class PetRestControllerTests {
     		.andExpect(status().isCreated());
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    public void testCreatePetWithPetTypeGivenByName() throws Exception {
+    	given(this.clinicService.findPetTypeByName("dog")).willReturn(pets.get(0).getType());
+    	Pet newPet = pets.get(1);
+    	newPet.setId(999);
+    	ObjectMapper mapper = new ObjectMapper();
+    	ObjectNode newPetNode = (ObjectNode) mapper.readTree(mapper.writeValueAsString(newPet));
+    	newPetNode.putObject("type").put("name", "dog");
+    	String newPetAsJSON = mapper.writeValueAsString(newPetNode);
+    	this.mockMvc.perform(post("/api/pets/")
+    		.content(newPetAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
+    		.andExpect(status().isCreated())
+    		.andExpect(jsonPath("$.type.id").value(2));
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     public void testCreatePetError() throws Exception {
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Tests for {@link OwnerLastNameIndex}, checking when changes become visible and when the index is reloaded.
+ */
+public class OwnerLastNameIndexTests {
+
+    private final Map<Integer, String> lastNames = new HashMap<>();
+
+    private OwnerLastNameIndex index;
+
+    @Before
+    public void setUp() {
+        this.lastNames.put(1, "Franklin");
+        this.lastNames.put(2, "Davis");
+        this.lastNames.put(4, "Davis");
+        this.index = new OwnerLastNameIndex(() -> new HashMap<>(this.lastNames), Duration.ofMinutes(5));
+        this.index.ensureLoaded();
+    }
+
+    @After
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<Integer> findInOtherThread(String prefix) {
+        return CompletableFuture.supplyAsync(() -> this.index.findIdsByPrefix(prefix, 10)).join();
+    }
+
+    @Test
+    public void shouldApplyChangesOnlyOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        this.index.put(1, "Daviss");
+        this.index.remove(2);
+        assertThat(this.index.findIdsByPrefix("dav", 10)).containsExactly(4, 1);
+        assertThat(this.index.findIdsByPrefix("dav", 1)).containsExactly(4);
+        assertThat(findInOtherThread("dav")).containsExactly(2, 4);
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+        assertThat(findInOtherThread("dav")).containsExactly(4, 1);
+    }
+
+    @Test
+    public void shouldDiscardRolledBackChanges() {
+        TransactionSynchronizationManager.initSynchronization();
+        this.index.put(1, "Davis");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+            TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(this.index.findIdsByPrefix("dav", 10)).containsExactly(2, 4);
+    }
+
+    @Test
+    public void shouldReloadOnceMaxAgeIsReached() throws InterruptedException {
+        OwnerLastNameIndex expiring = new OwnerLastNameIndex(() -> new HashMap<>(this.lastNames), Duration.ofMillis(1));
+        assertThat(expiring.findIdsByPrefix("f", 10)).containsExactly(1);
+        this.lastNames.put(3, "Forbes");
+        Thread.sleep(5);
+        assertThat(expiring.findIdsByPrefix("f", 10)).containsExactly(3, 1);
+        assertThat(this.index.findIdsByPrefix("f", 10)).containsExactly(1);
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * <p> Base class for the tests of the jpa and spring-data-jpa profiles, which share the second-level cache and the bulk
+ * statements of the JPA repositories.
+ *
+ * @see AbstractClinicServiceTests AbstractClinicServiceTests for more details. </p>
+ */
+public abstract class AbstractClinicServiceJpaTests extends AbstractClinicServiceTests {
+
+    @PersistenceContext
+    protected EntityManager em;
+
+    @Test
+    @Transactional
+    public void shouldEvictCachedVetSpecialtiesOnSpecialtyDelete() {
+        Cache cache = this.em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        Vet vet = this.clinicService.findVetById(2);
+        assertThat(cache.containsCollection(Vet.class.getName() + ".specialties", 2)).isTrue();
+
+        this.clinicService.deleteSpecialty(vet.getSpecialties().get(0));
+        assertThat(cache.containsCollection(Vet.class.getName() + ".specialties", 2)).isFalse();
+        this.em.clear();
+        assertThat(this.clinicService.findVetById(2).getSpecialties()).isEmpty();
+        assertThat(this.clinicService.findAllSpecialties()).extracting(Specialty::getId).doesNotContain(1);
+    }
+
+    @Test
+    @Transactional
+    public void shouldNotListDeletedPetTypesFromQueryCache() {
+        assertThat(this.clinicService.findPetTypes()).extracting(PetType::getId).contains(4);
+        PetType petType = this.clinicService.findPetTypeById(4);
+
+        this.clinicService.deletePetType(petType);
+        this.em.clear();
+        assertThat(this.clinicService.findPetTypes()).extracting(PetType::getId).doesNotContain(4);
+        assertThat(this.clinicService.findAllPetTypes()).extracting(PetType::getId).doesNotContain(4);
+    }
+
+    @Test
+    @Transactional
+    public void shouldDetachOnlyManagedEntitiesOnPetTypeDelete() {
+        Visit visit = this.em.find(Visit.class, 1);
+        Pet samantha = visit.getPet();
+        Pet basil = this.em.find(Pet.class, 2);
+        PetType cat = this.clinicService.findPetTypeById(1);
+        this.em.flush();
+
+        Statistics statistics = this.em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            this.clinicService.deletePetType(cat);
+            // the three bulk deletes, without selecting the ids of the deleted pets and visits beforehand
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+        assertThat(this.em.contains(visit)).isFalse();
+        assertThat(this.em.contains(samantha)).isFalse();
+        assertThat(this.em.contains(cat)).isFalse();
+        assertThat(this.em.contains(basil)).isTrue();
+        this.em.flush();
+    }
+
+    @Test
+    @Transactional
+    public void shouldReuseQueryPlansOfDeletes() {
+        Owner owner = this.clinicService.findOwnerById(1);
+        PetType petType = this.clinicService.findPetTypeById(2);
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Pet pet = new Pet();
+            pet.setName("pet " + i);
+            pet.setBirthDate(new Date());
+            pet.setType(petType);
+            owner.addPet(pet);
+            Visit visit = new Visit();
+            visit.setDate(new Date());
+            visit.setDescription("visit " + i);
+            pet.addVisit(visit);
+            pets.add(pet);
+        }
+        this.clinicService.savePets(pets);
+        this.em.flush();
+        this.em.clear();
+        List<Integer> petIds = pets.stream().map(Pet::getId).collect(Collectors.toList());
+        assertThat(countVisitsOfPets(petIds)).isEqualTo(pets.size());
+
+        Statistics statistics = this.em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            for (Pet pet : pets) {
+                this.clinicService.deletePet(pet);
+            }
+            assertThat(statistics.getQueryPlanCacheMissCount()).isLessThanOrEqualTo(2);
+            assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThanOrEqualTo(2 * pets.size() - 2);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+        assertThat(countVisitsOfPets(petIds)).isZero();
+        assertThat(this.em.createQuery("SELECT count(pet) FROM Pet pet WHERE pet.id IN :ids", Long.class)
+            .setParameter("ids", petIds).getSingleResult()).isZero();
+    }
+
+    private long countVisitsOfPets(List<Integer> petIds) {
+        return this.em.createQuery("SELECT count(visit) FROM Visit visit WHERE visit.pet.id IN :ids", Long.class)
+            .setParameter("ids", petIds).getSingleResult();
+    }
+
+}
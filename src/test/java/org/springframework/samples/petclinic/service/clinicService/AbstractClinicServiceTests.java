@@ -17,8 +17,13 @@ package org.springframework.samples.petclinic.service.clinicService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,10 +33,16 @@ import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.model.projection.OwnerPetSummary;
+import org.springframework.samples.petclinic.model.projection.OwnerSummary;
+import org.springframework.samples.petclinic.model.projection.PetSummary;
+import org.springframework.samples.petclinic.model.projection.VisitSummary;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * <p> Base class for {@link ClinicService} integration tests. </p> <p> Subclasses should specify Spring context
@@ -58,6 +69,9 @@ public abstract class AbstractClinicServiceTests {
     @Autowired
     protected ClinicService clinicService;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     public void shouldFindOwnersByLastName() {
         Collection<Owner> owners = this.clinicService.findOwnerByLastName("Davis");
@@ -118,6 +132,16 @@ public abstract class AbstractClinicServiceTests {
 
     }
 
+    @Test
+    public void shouldFindPetWithTypeAndVisits() {
+        Pet pet8 = this.clinicService.findPetById(8);
+        assertThat(pet8.getName()).isEqualTo("Max");
+        assertThat(pet8.getType().getName()).isEqualTo("cat");
+        assertThat(pet8.getOwner().getLastName()).isEqualTo("Coleman");
+        assertThat(pet8.getVisits().size()).isEqualTo(2);
+        assertThat(pet8.getVisits().get(0).getPet()).isSameAs(pet8);
+    }
+
 //    @Test
 //    public void shouldFindAllPetTypes() {
 //        Collection<PetType> petTypes = this.clinicService.findPetTypes();
@@ -211,6 +235,17 @@ public abstract class AbstractClinicServiceTests {
         assertThat(pet3.getName()).isEqualTo("Rosy");
     }
 
+    @Test
+    public void shouldFindAllPetsWithTypeOwnerAndVisits(){
+        Collection<Pet> pets = this.clinicService.findAllPets();
+        Pet pet7 = EntityUtils.getById(pets, Pet.class, 7);
+        assertThat(pet7.getType().getName()).isEqualTo("cat");
+        assertThat(pet7.getOwner().getFirstName()).isEqualTo("Jean");
+        assertThat(pet7.getVisits().size()).isEqualTo(2);
+        Pet pet8 = EntityUtils.getById(pets, Pet.class, 8);
+        assertThat(pet8.getOwner()).isSameAs(pet7.getOwner());
+    }
+
     @Test
     @Transactional
     public void shouldDeletePet(){
@@ -240,6 +275,16 @@ public abstract class AbstractClinicServiceTests {
         assertThat(visit3.getPet().getName()).isEqualTo("Max");
     }
 
+    @Test
+    public void shouldFindAllVisitsWithSharedPetAndOwner(){
+        Collection<Visit> visits = this.clinicService.findAllVisits();
+        Visit visit2 = EntityUtils.getById(visits, Visit.class, 2);
+        Visit visit3 = EntityUtils.getById(visits, Visit.class, 3);
+        assertThat(visit2.getPet()).isSameAs(visit3.getPet());
+        assertThat(visit3.getPet().getType().getName()).isEqualTo("cat");
+        assertThat(visit3.getPet().getOwner().getLastName()).isEqualTo("Coleman");
+    }
+
     @Test
     @Transactional
     public void shouldInsertVisit() {
@@ -293,6 +338,15 @@ public abstract class AbstractClinicServiceTests {
     	assertThat(vet.getLastName()).isEqualTo("Carter");
     }
 
+    @Test
+    public void shouldFindVetWithSpecialtiesById(){
+        Vet vet = this.clinicService.findVetById(3);
+        assertThat(vet.getLastName()).isEqualTo("Douglas");
+        assertThat(vet.getNrOfSpecialties()).isEqualTo(2);
+        assertThat(vet.getSpecialties().get(0).getName()).isEqualTo("dentistry");
+        assertThat(vet.getSpecialties().get(1).getName()).isEqualTo("surgery");
+    }
+
     @Test
     @Transactional
     public void shouldInsertVet() {
@@ -322,6 +376,20 @@ public abstract class AbstractClinicServiceTests {
         assertThat(vet.getLastName()).isEqualTo(newLastName);
     }
 
+    @Test
+    @Transactional
+    public void shouldUpdateVetSpecialties(){
+        Vet vet = this.clinicService.findVetById(3);
+        vet.clearSpecialties();
+        vet.addSpecialty(this.clinicService.findSpecialtyById(3));
+        vet.addSpecialty(this.clinicService.findSpecialtyById(1));
+        this.clinicService.saveVet(vet);
+        vet = this.clinicService.findVetById(3);
+        assertThat(vet.getNrOfSpecialties()).isEqualTo(2);
+        assertThat(vet.getSpecialties().get(0).getName()).isEqualTo("dentistry");
+        assertThat(vet.getSpecialties().get(1).getName()).isEqualTo("radiology");
+    }
+
     @Test
     @Transactional
     public void shouldDeleteVet(){
@@ -344,6 +412,62 @@ public abstract class AbstractClinicServiceTests {
         assertThat(owner3.getFirstName()).isEqualTo("Eduardo");
     }
 
+    @Test
+    public void shouldFindAllOwnersWithPetsAndVisits(){
+        Collection<Owner> owners = this.clinicService.findAllOwners();
+        Owner owner3 = EntityUtils.getById(owners, Owner.class, 3);
+        assertThat(owner3.getPets().size()).isEqualTo(2);
+        Owner owner6 = EntityUtils.getById(owners, Owner.class, 6);
+        Pet pet8 = EntityUtils.getById(owner6.getPets(), Pet.class, 8);
+        assertThat(pet8.getType().getName()).isEqualTo("cat");
+        assertThat(pet8.getOwner()).isSameAs(owner6);
+        assertThat(pet8.getVisits().size()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    public void shouldFindOwnerSummariesMatchingOwners(){
+        List<OwnerSummary> summaries = new ArrayList<>(this.clinicService.findAllOwnerSummaries());
+        List<Owner> owners = new ArrayList<>(this.clinicService.findAllOwners());
+        owners.sort((first, second) -> first.getId().compareTo(second.getId()));
+        assertThat(summaries).extracting(OwnerSummary::getId).containsExactlyElementsOf(
+            owners.stream().map(Owner::getId).collect(Collectors.toList()));
+        for (int i = 0; i < owners.size(); i++) {
+            Owner owner = owners.get(i);
+            OwnerSummary summary = summaries.get(i);
+            assertThat(summary.getLastName()).isEqualTo(owner.getLastName());
+            assertThat(summary.getTelephone()).isEqualTo(owner.getTelephone());
+            assertThat(summary.getPets()).extracting(OwnerPetSummary::getName).containsExactlyElementsOf(
+                owner.getPets().stream().map(Pet::getName).collect(Collectors.toList()));
+            for (int j = 0; j < owner.getPets().size(); j++) {
+                Pet pet = owner.getPets().get(j);
+                OwnerPetSummary petSummary = summary.getPets().get(j);
+                assertThat(petSummary.getOwnerId()).isEqualTo(owner.getId());
+                assertThat(petSummary.getType().getName()).isEqualTo(pet.getType().getName());
+                assertThat(petSummary.getVisits()).extracting(VisitSummary::getId).containsExactlyElementsOf(
+                    pet.getVisits().stream().map(Visit::getId).collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindPetSummariesWithTypeOwnerAndVisits(){
+        Collection<PetSummary> summaries = this.clinicService.findAllPetSummaries();
+        assertThat(summaries).extracting(PetSummary::getId).isSorted();
+        PetSummary pet7 = summaries.stream().filter(pet -> pet.getId() == 7).findFirst().get();
+        assertThat(pet7.getName()).isEqualTo("Samantha");
+        assertThat(pet7.getBirthDate()).hasToString("2012-09-04");
+        assertThat(pet7.getType().getName()).isEqualTo("cat");
+        assertThat(pet7.getOwner().getFirstName()).isEqualTo("Jean");
+        assertThat(pet7.getOwner().getPets()).isEmpty();
+        assertThat(pet7.getVisits()).hasSize(2);
+        assertThat(pet7.getVisits()).extracting(VisitSummary::getPetId).containsOnly(7);
+        assertThat(pet7.getVisits().get(0).getDate()).isAfterOrEqualTo(pet7.getVisits().get(1).getDate());
+        PetSummary pet8 = summaries.stream().filter(pet -> pet.getId() == 8).findFirst().get();
+        assertThat(pet8.getOwner()).isSameAs(pet7.getOwner());
+        assertThat(pet8.getType()).isSameAs(pet7.getType());
+    }
+
     @Test
     @Transactional
     public void shouldDeleteOwner(){
@@ -363,6 +487,23 @@ public abstract class AbstractClinicServiceTests {
     	assertThat(petType.getName()).isEqualTo("cat");
     }
 
+    @Test
+    public void shouldFindPetTypeByNameIgnoringCase(){
+        PetType petType = this.clinicService.findPetTypeByName("CAT");
+        assertThat(petType.getId()).isEqualTo(1);
+        assertThat(this.clinicService.findPetTypeByName("unicorn")).isNull();
+    }
+
+    @Test
+    @Transactional
+    public void shouldFindInsertedPetTypeByName(){
+        PetType petType = new PetType();
+        petType.setName("tiger");
+        this.clinicService.savePetType(petType);
+
+        assertThat(this.clinicService.findPetTypeByName("Tiger").getId()).isEqualTo(petType.getId());
+    }
+
     @Test
     public void shouldFindAllPetTypes(){
         Collection<PetType> petTypes = this.clinicService.findAllPetTypes();
@@ -413,12 +554,34 @@ public abstract class AbstractClinicServiceTests {
         assertThat(petType).isNull();
     }
 
+    @Test
+    @Transactional
+    public void shouldDeletePetTypeWithItsPetsAndVisits(){
+        Owner owner6 = this.clinicService.findOwnerById(6);
+        assertThat(owner6.getPets()).extracting(Pet::getId).containsOnly(7, 8);
+        assertThat(this.clinicService.findVisitsByPetId(7)).isNotEmpty();
+        PetType cat = this.clinicService.findPetTypeById(1);
+
+        this.clinicService.deletePetType(cat);
+        assertThat(this.clinicService.findOwnerById(6).getPets()).isEmpty();
+        assertThat(this.clinicService.findAllVisits()).extracting(Visit::getId).doesNotContain(1, 2, 3, 4);
+        assertThat(this.clinicService.findAllPets()).extracting(Pet::getId).doesNotContain(1, 7, 8, 13);
+        assertThat(this.clinicService.findAllPetTypes()).extracting(PetType::getId).doesNotContain(1);
+    }
+
     @Test
     public void shouldFindSpecialtyById(){
     	Specialty specialty = this.clinicService.findSpecialtyById(1);
     	assertThat(specialty.getName()).isEqualTo("radiology");
     }
 
+    @Test
+    public void shouldFindSpecialtyByNameIgnoringCase(){
+        Specialty specialty = this.clinicService.findSpecialtyByName("Radiology");
+        assertThat(specialty.getId()).isEqualTo(1);
+        assertThat(this.clinicService.findSpecialtyByName("astrology")).isNull();
+    }
+
     @Test
     public void shouldFindAllSpecialtys(){
         Collection<Specialty> specialties = this.clinicService.findAllSpecialties();
@@ -475,5 +638,224 @@ public abstract class AbstractClinicServiceTests {
         assertThat(specialty).isNull();
     }
 
+    @Test
+    public void shouldFindOwnerPagesById() {
+        List<Owner> first = new ArrayList<>(this.clinicService.findOwnerPage(0, 4));
+        assertThat(first).extracting(Owner::getId).containsExactly(1, 2, 3, 4);
+        List<Owner> last = new ArrayList<>(this.clinicService.findOwnerPage(8, 4));
+        assertThat(last).extracting(Owner::getId).containsExactly(9, 10);
+        assertThat(last.get(1).getPets().size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFetchPetsAndVisitsWithOwnerPages() {
+        List<Owner> page = new ArrayList<>(this.clinicService.findOwnerPage(5, 1));
+        assertThat(page).extracting(Owner::getId).containsExactly(6);
+        assertThat(page.get(0).getPets()).extracting(Pet::getId).containsExactlyInAnyOrder(7, 8);
+        assertThat(page.get(0).getPets().stream().mapToInt(pet -> pet.getVisits().size()).sum()).isEqualTo(4);
+    }
+
+    @Test
+    @Transactional
+    public void shouldDeletePetsOfLoadedOwner() {
+        Owner owner = this.clinicService.findOwnerById(6);
+        this.clinicService.deletePets(owner.getPets());
+        assertThat(this.clinicService.findOwnerById(6).getPets()).isEmpty();
+        assertThat(this.clinicService.findAllPets()).extracting(Pet::getId).doesNotContain(7, 8);
+    }
+
+    @Test
+    public void shouldFindPetPagesById() {
+        List<Pet> page = new ArrayList<>(this.clinicService.findPetPage(6, 2));
+        assertThat(page).extracting(Pet::getId).containsExactly(7, 8);
+        assertThat(page.get(0).getType().getName()).isEqualTo("cat");
+        assertThat(page.get(0).getOwner().getId()).isEqualTo(6);
+        assertThat(page.get(1).getVisits().size()).isEqualTo(2);
+        assertThat(this.clinicService.findPetPage(13, 5)).isEmpty();
+    }
+
+    @Test
+    public void shouldFindVisitPagesById() {
+        List<Visit> page = new ArrayList<>(this.clinicService.findVisitPage(1, 2));
+        assertThat(page).extracting(Visit::getId).containsExactly(2, 3);
+        assertThat(page.get(0).getPet().getId()).isEqualTo(8);
+    }
+
+    @Test
+    public void shouldFindVetPagesById() {
+        List<Vet> page = new ArrayList<>(this.clinicService.findVetPage(2, 2));
+        assertThat(page).extracting(Vet::getId).containsExactly(3, 4);
+        assertThat(page.get(0).getNrOfSpecialties()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFindOwnersByLastNamePrefixIgnoringCase() {
+        List<Owner> owners = new ArrayList<>(this.clinicService.findOwnerByLastName("es"));
+        assertThat(owners).extracting(Owner::getId).containsExactly(8, 10);
+        assertThat(owners.get(1).getPets().size()).isEqualTo(2);
+        assertThat(this.clinicService.findOwnerByLastName("")).hasSize(10);
+    }
+
+    @Test
+    public void shouldFindOwnerPageByLastName() {
+        List<Owner> owners = new ArrayList<>(this.clinicService.findOwnerPageByLastName("davis", 1));
+        assertThat(owners).extracting(Owner::getId).containsExactly(2);
+        assertThat(this.clinicService.findOwnerPageByLastName("d", 5)).extracting(Owner::getId).containsExactly(2, 4);
+    }
+
+    @Test
+    @Transactional
+    public void shouldFindRenamedAndNotDeletedOwnersByLastName() {
+        Owner owner = this.clinicService.findOwnerById(1);
+        owner.setLastName("Davison");
+        this.clinicService.saveOwner(owner);
+        assertThat(this.clinicService.findOwnerByLastName("Davis")).extracting(Owner::getId).containsExactly(2, 4, 1);
+        assertThat(this.clinicService.findOwnerByLastName("Franklin")).isEmpty();
+
+        this.clinicService.deleteOwner(this.clinicService.findOwnerById(4));
+        assertThat(this.clinicService.findOwnerByLastName("Davis")).extracting(Owner::getId).containsExactly(2, 1);
+    }
+
+    @Test
+    @Transactional
+    public void shouldSaveVisitsInBulk() {
+        int found = this.clinicService.findAllVisits().size();
+        Pet pet = this.clinicService.findPetById(1);
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Visit visit = new Visit();
+            visit.setPet(pet);
+            visit.setDate(new Date());
+            visit.setDescription("bulk visit " + i);
+            visits.add(visit);
+        }
+        Visit visit1 = this.clinicService.findVisitById(1);
+        visit1.setDescription("rabies shot, bulk");
+        visits.add(visit1);
+
+        this.clinicService.saveVisits(visits);
+
+        assertThat(visits).extracting(Visit::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(this.clinicService.findAllVisits().size()).isEqualTo(found + 3);
+        assertThat(this.clinicService.findVisitById(visits.get(2).getId()).getDescription()).isEqualTo("bulk visit 2");
+        assertThat(this.clinicService.findVisitById(1).getDescription()).isEqualTo("rabies shot, bulk");
+    }
+
+    @Test
+    @Transactional
+    public void shouldDeleteVisitsInBulk() {
+        int found = this.clinicService.findAllVisits().size();
+        this.clinicService.deleteVisits(Arrays.asList(this.clinicService.findVisitById(1), this.clinicService.findVisitById(2)));
+        assertThat(this.clinicService.findAllVisits()).extracting(Visit::getId).hasSize(found - 2).doesNotContain(1, 2);
+    }
+
+    @Test
+    @Transactional
+    public void shouldSavePetsInBulk() {
+        Owner owner6 = this.clinicService.findOwnerById(6);
+        PetType type = EntityUtils.getById(this.clinicService.findPetTypes(), PetType.class, 2);
+        List<Pet> pets = new ArrayList<>();
+        for (String name : Arrays.asList("bowser", "growler")) {
+            Pet pet = new Pet();
+            pet.setName(name);
+            pet.setType(type);
+            pet.setBirthDate(new Date());
+            owner6.addPet(pet);
+            pets.add(pet);
+        }
+        Pet pet7 = this.clinicService.findPetById(7);
+        pet7.setName("Sam");
+        pets.add(pet7);
+
+        this.clinicService.savePets(pets);
+
+        assertThat(pets).extracting(Pet::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(this.clinicService.findPetById(pets.get(1).getId()).getName()).isEqualTo("growler");
+        assertThat(this.clinicService.findPetById(7).getName()).isEqualTo("Sam");
+    }
+
+    @Test
+    @Transactional
+    public void shouldDeletePetsAndTheirVisitsInBulk() {
+        int found = this.clinicService.findAllVisits().size();
+        this.clinicService.deletePets(Arrays.asList(this.clinicService.findPetById(7), this.clinicService.findPetById(8)));
+        assertThat(this.clinicService.findAllPets()).extracting(Pet::getId).doesNotContain(7, 8);
+        assertThat(this.clinicService.findAllVisits()).hasSize(found - 4);
+    }
+
+    @Test
+    @Transactional
+    public void shouldSaveAndDeleteOwnersInBulk() {
+        int found = this.clinicService.findAllOwners().size();
+        List<Owner> owners = new ArrayList<>();
+        for (String lastName : Arrays.asList("Schultz", "Schroeder")) {
+            Owner owner = new Owner();
+            owner.setFirstName("Sam");
+            owner.setLastName(lastName);
+            owner.setAddress("4, Evans Street");
+            owner.setCity("Wollongong");
+            owner.setTelephone("4444444444");
+            owners.add(owner);
+        }
+        this.clinicService.saveOwners(owners);
+        assertThat(owners).extracting(Owner::getId).doesNotContainNull();
+        assertThat(this.clinicService.findAllOwners().size()).isEqualTo(found + 2);
+
+        owners.add(this.clinicService.findOwnerById(6));
+        this.clinicService.deleteOwners(owners);
+        assertThat(this.clinicService.findAllOwners()).extracting(Owner::getId).hasSize(found - 1).doesNotContain(6);
+        assertThat(this.clinicService.findAllPets()).extracting(Pet::getId).doesNotContain(7, 8);
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    public void shouldStreamAllOwnersWithPetsAndVisits() {
+        List<Owner> owners;
+        try (Stream<Owner> stream = this.clinicService.streamAllOwners()) {
+            owners = stream.collect(Collectors.toList());
+        }
+        assertThat(owners).extracting(Owner::getId).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        Owner owner6 = owners.get(5);
+        assertThat(owner6.getPets().size()).isEqualTo(2);
+        assertThat(owner6.getPet("Max").getVisits().size()).isEqualTo(2);
+        assertThat(owner6.getPet("Max").getType().getName()).isEqualTo("cat");
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    public void shouldStreamAllVisitsWithPets() {
+        List<Visit> visits;
+        try (Stream<Visit> stream = this.clinicService.streamAllVisits()) {
+            visits = stream.collect(Collectors.toList());
+        }
+        assertThat(visits).extracting(Visit::getId).containsExactly(1, 2, 3, 4);
+        assertThat(visits.get(1).getPet().getName()).isEqualTo("Max");
+        assertThat(visits.get(1).getPet().getOwner().getLastName()).isEqualTo("Coleman");
+    }
+
+    @Test
+    public void shouldKeepPendingChangesWhenStreaming() {
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        String telephone = this.clinicService.findOwnerById(1).getTelephone();
+        try {
+            transaction.execute(status -> {
+                Owner owner = this.clinicService.findOwnerById(1);
+                owner.setTelephone("6085559999");
+                this.clinicService.saveOwner(owner);
+                try (Stream<Visit> stream = this.clinicService.streamAllVisits()) {
+                    assertThat(stream.count()).isEqualTo(4);
+                }
+                return null;
+            });
+            assertThat(this.clinicService.findOwnerById(1).getTelephone()).isEqualTo("6085559999");
+        } finally {
+            transaction.execute(status -> {
+                Owner owner = this.clinicService.findOwnerById(1);
+                owner.setTelephone(telephone);
+                this.clinicService.saveOwner(owner);
+                return null;
+            });
+        }
+    }
 
 }
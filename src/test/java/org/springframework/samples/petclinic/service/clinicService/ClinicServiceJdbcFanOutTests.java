@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * <p> Integration test using the jdbc profile, reading owners and vets by id with concurrent sub-queries. The
+ * threads taking connections are recorded to tell forked queries from sequential ones.
+ *
+ * @see ClinicServiceJdbcTests </p>
+ */
+@SpringBootTest(properties = "petclinic.jdbc.fan-out.max-connections=2")
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles({"jdbc", "hsqldb"})
+public class ClinicServiceJdbcFanOutTests extends ClinicServiceJdbcTests {
+
+    private static final String FAN_OUT_THREAD_PREFIX = "jdbc-fan-out-";
+
+    @SpyBean
+    private DataSource dataSource;
+
+    private final Set<String> connectingThreads = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void recordConnectingThreads() throws SQLException {
+        doAnswer(invocation -> {
+            this.connectingThreads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(this.dataSource).getConnection();
+    }
+
+    @Test
+    public void shouldFanOutOwnerLookupOutsideOfTransactions() {
+        // loads the reference data, which is read on the calling thread
+        this.clinicService.findOwnerById(6);
+        this.connectingThreads.clear();
+
+        Owner owner = this.clinicService.findOwnerById(6);
+        assertThat(owner.getLastName()).isEqualTo("Coleman");
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Max", "Samantha");
+        assertThat(owner.getPet("Max").getVisits().size()).isEqualTo(2);
+        assertThat(owner.getPet("Max").getVisits().get(0).getPet()).isSameAs(owner.getPet("Max"));
+        assertThat(owner.getPet("Max").getType().getName()).isEqualTo("cat");
+        assertThat(this.connectingThreads).anyMatch(name -> name.startsWith(FAN_OUT_THREAD_PREFIX));
+    }
+
+    @Test
+    public void shouldFanOutVetLookupOutsideOfTransactions() {
+        this.clinicService.findVetById(3);
+        this.connectingThreads.clear();
+
+        Vet vet = this.clinicService.findVetById(3);
+        assertThat(vet.getLastName()).isEqualTo("Douglas");
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("dentistry", "surgery");
+        // both queries were forked, so the caller held no connection while it waited for them
+        assertThat(this.connectingThreads).isNotEmpty().allMatch(name -> name.startsWith(FAN_OUT_THREAD_PREFIX));
+    }
+
+    @Test
+    @Transactional
+    public void shouldReadSequentiallyWithinTransactions() {
+        this.connectingThreads.clear();
+
+        Vet vet = this.clinicService.findVetById(3);
+        assertThat(vet.getLastName()).isEqualTo("Douglas");
+        assertThat(this.connectingThreads).noneMatch(name -> name.startsWith(FAN_OUT_THREAD_PREFIX));
+    }
+
+}
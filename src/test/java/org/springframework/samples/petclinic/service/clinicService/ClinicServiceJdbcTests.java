@@ -15,10 +15,24 @@
  */
 package org.springframework.samples.petclinic.service.clinicService;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * <p> Integration test using the jdbc profile.
@@ -32,5 +46,82 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 @ActiveProfiles({"jdbc", "hsqldb"})
 public class ClinicServiceJdbcTests extends AbstractClinicServiceTests {
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @Transactional
+    public void shouldDeletePetsAndVisitsOfDeletedPetType() {
+        PetType cat = this.clinicService.findPetTypeById(1);
+        this.clinicService.deletePetType(cat);
+        assertThat(this.clinicService.findPetById(7)).isNull();
+        assertThat(this.clinicService.findPetById(13)).isNull();
+        assertThat(this.clinicService.findVisitById(1)).isNull();
+        assertThat(this.clinicService.findPetById(3)).isNotNull();
+    }
+
+    @Test
+    @Transactional
+    public void shouldDeletePetsAndVisitsOfDeletedOwner() {
+        Owner owner = this.clinicService.findOwnerById(6);
+        this.clinicService.deleteOwner(owner);
+        assertThat(this.clinicService.findPetById(7)).isNull();
+        assertThat(this.clinicService.findPetById(8)).isNull();
+        assertThat(this.clinicService.findVisitById(3)).isNull();
+        assertThat(this.clinicService.findOwnerById(5).getPets().size()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void shouldLoadVisitsOfOwnersPetsOnFirstAccess() {
+        Owner owner = this.clinicService.findOwnerById(6);
+
+        Visit visit = new Visit();
+        visit.setPet(this.clinicService.findPetById(7));
+        visit.setDate(new Date());
+        visit.setDescription("after the owner was loaded");
+        this.clinicService.saveVisit(visit);
+
+        assertThat(owner.getPet("Samantha").getVisits().size()).isEqualTo(3);
+        assertThat(owner.getPet("Max").getVisits().size()).isEqualTo(2);
+        assertThat(owner.getPet("Max").getVisits().get(0).getPet()).isSameAs(owner.getPet("Max"));
+    }
+
+    @Test
+    @Transactional
+    public void shouldResolvePetTypesFromLatestReferenceData() {
+        PetType cat = this.clinicService.findPetTypeById(1);
+        cat.setName("kitty");
+        assertThat(this.clinicService.findPetById(7).getType().getName()).isEqualTo("cat");
+
+        this.clinicService.savePetType(cat);
+        assertThat(this.clinicService.findPetById(7).getType().getName()).isEqualTo("kitty");
+        assertThat(this.clinicService.findVisitById(1).getPet().getType().getName()).isEqualTo("kitty");
+        assertThat(this.clinicService.findOwnerById(6).getPet("Max").getType().getName()).isEqualTo("kitty");
+    }
+
+    @Test
+    public void shouldShareRenamedPetTypesOnlyOnceCommitted() {
+        assertThat(this.clinicService.findPetById(7).getType().getName()).isEqualTo("cat");
+        new TransactionTemplate(this.transactionManager).execute(status -> {
+            PetType cat = this.clinicService.findPetTypeById(1);
+            cat.setName("kitty");
+            this.clinicService.savePetType(cat);
+            assertThat(this.clinicService.findPetById(7).getType().getName()).isEqualTo("kitty");
+            assertThat(CompletableFuture.supplyAsync(() -> this.clinicService.findPetById(7).getType().getName())
+                .join()).isEqualTo("cat");
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThat(this.clinicService.findPetById(7).getType().getName()).isEqualTo("cat");
+    }
+
+    @Test
+    public void shouldNotModifySharedPetTypes() {
+        PetType cat = this.clinicService.findPetById(7).getType();
+        assertThatThrownBy(() -> cat.setName("kitty")).isInstanceOf(UnsupportedOperationException.class);
+        this.clinicService.findPetTypeById(1).setName("kitty");
+        assertThat(this.clinicService.findPetById(7).getType().getName()).isEqualTo("cat");
+    }
 
 }
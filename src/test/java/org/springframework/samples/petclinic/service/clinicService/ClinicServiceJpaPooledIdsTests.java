@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * <p> Integration test using the jpa profile, with ids reserved in blocks from sequences instead of identity columns.
+ *
+ * @see ClinicServiceJpaTests </p>
+ */
+@SpringBootTest(properties = {"petclinic.stream.fetch-size=2", "spring.jpa.mapping-resources=META-INF/pooled-ids.xml",
+    "spring.datasource.schema=classpath*:db/hsqldb/initDB.sql,classpath*:db/hsqldb/pooledIds.sql"})
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles({"jpa", "hsqldb"})
+public class ClinicServiceJpaPooledIdsTests extends ClinicServiceJpaTests {
+
+    @Test
+    @Transactional
+    public void shouldReserveIdsOfBulkInsertsInOneBlock() {
+        Pet pet = this.clinicService.findPetById(7);
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Visit visit = new Visit();
+            visit.setDate(new Date());
+            visit.setDescription("check-up " + i);
+            pet.addVisit(visit);
+            visits.add(visit);
+        }
+        this.clinicService.saveVisits(visits);
+        int first = visits.get(0).getId();
+        assertThat(visits).extracting(Visit::getId).containsExactly(first, first + 1, first + 2);
+    }
+
+}
@@ -6,17 +6,17 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 /**
- * <p> Integration test using the jpa profile.
+ * <p> Integration test using the jpa profile. Streams clear the persistence context every two results.
  *
  * @author Rod Johnson
  * @author Sam Brannen
  * @author Michael Isvy
- * @see AbstractClinicServiceTests AbstractClinicServiceTests for more details. </p>
+ * @see AbstractClinicServiceJpaTests AbstractClinicServiceJpaTests for more details. </p>
  */
 
-@SpringBootTest
+@SpringBootTest(properties = "petclinic.stream.fetch-size=2")
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles({"jpa", "hsqldb"})
-public class ClinicServiceJpaTests extends AbstractClinicServiceTests {
+public class ClinicServiceJpaTests extends AbstractClinicServiceJpaTests {
 
 }
@@ -9,12 +9,12 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
  * <p> Integration test using the 'Spring Data' profile.
  *
  * @author Michael Isvy
- * @see AbstractClinicServiceTests AbstractClinicServiceTests for more details. </p>
+ * @see AbstractClinicServiceJpaTests AbstractClinicServiceJpaTests for more details. </p>
  */
 
 @SpringBootTest
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles({"spring-data-jpa", "hsqldb"})
-public class ClinicServiceSpringDataJpaTests extends AbstractClinicServiceTests {
+public class ClinicServiceSpringDataJpaTests extends AbstractClinicServiceJpaTests {
 
 }
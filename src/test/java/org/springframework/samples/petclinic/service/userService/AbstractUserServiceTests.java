@@ -4,17 +4,20 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.Arrays;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.User;
 import org.springframework.samples.petclinic.service.UserService;
+import org.springframework.transaction.annotation.Transactional;
 
 public abstract class AbstractUserServiceTests {
 
     @Autowired
-    private UserService userService;
+    protected UserService userService;
 
     @Before
     public void init() {
@@ -33,4 +36,50 @@ public abstract class AbstractUserServiceTests {
         assertThat(user.getRoles().parallelStream().allMatch(role -> role.getName().startsWith("ROLE_")), is(true));
         assertThat(user.getRoles().parallelStream().allMatch(role -> role.getUser() != null), is(true));
     }
+
+    @Test
+    @Transactional
+    public void shouldAddUsers() throws Exception {
+        User first = new User();
+        first.setUsername("first");
+        first.setPassword("password");
+        first.setEnabled(true);
+        first.addRole("OWNER_ADMIN");
+        User second = new User();
+        second.setUsername("second");
+        second.setPassword("password");
+        second.setEnabled(false);
+        second.addRole("VET_ADMIN");
+        second.addRole("OWNER_ADMIN");
+
+        userService.saveUsers(Arrays.asList(first, second));
+        assertThat(second.getRoles().parallelStream().allMatch(role -> role.getName().startsWith("ROLE_")), is(true));
+        assertThat(second.getRoles().parallelStream().allMatch(role -> role.getUser() == second), is(true));
+    }
+
+    @Test
+    @Transactional
+    public void shouldAddAndUpdateUsersTogether() throws Exception {
+        User existing = new User();
+        existing.setUsername("existing");
+        existing.setPassword("password");
+        existing.setEnabled(true);
+        existing.addRole("OWNER_ADMIN");
+        userService.saveUser(existing);
+
+        User updated = new User();
+        updated.setUsername("existing");
+        updated.setPassword("changed");
+        updated.setEnabled(false);
+        updated.addRole("VET_ADMIN");
+        User added = new User();
+        added.setUsername("added");
+        added.setPassword("password");
+        added.setEnabled(true);
+        added.addRole("OWNER_ADMIN");
+
+        userService.saveUsers(Arrays.asList(updated, added));
+        assertThat(updated.getRoles().parallelStream().allMatch(role -> role.getUser() == updated), is(true));
+        assertThat(added.getRoles().parallelStream().allMatch(role -> role.getUser() == added), is(true));
+    }
 }
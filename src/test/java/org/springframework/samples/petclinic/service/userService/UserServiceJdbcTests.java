@@ -1,13 +1,44 @@
 package org.springframework.samples.petclinic.service.userService;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.User;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
 
 @SpringBootTest
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles({"jdbc", "hsqldb"})
 public class UserServiceJdbcTests extends AbstractUserServiceTests {
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional
+    public void shouldUpdateExistingUserAndRoles() throws Exception {
+        User admin = new User();
+        admin.setUsername("admin");
+        admin.setPassword("{noop}changed");
+        admin.setEnabled(false);
+        admin.addRole("ROLE_ADMIN");
+        admin.addRole("ROLE_OWNER_ADMIN");
+        admin.addRole("ROLE_CLINIC_ADMIN");
+
+        userService.saveUsers(Collections.singletonList(admin));
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT password FROM users WHERE username='admin'", String.class)).isEqualTo("{noop}changed");
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT role FROM roles WHERE username='admin' ORDER BY role", String.class))
+            .containsExactly("ROLE_ADMIN", "ROLE_CLINIC_ADMIN", "ROLE_OWNER_ADMIN");
+    }
+
 }
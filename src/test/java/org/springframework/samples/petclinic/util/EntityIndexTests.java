@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.model.PetType;
+
+/**
+ * Tests for {@link EntityIndex}, checking that it honours the {@link EntityUtils#getById} contract.
+ */
+public class EntityIndexTests {
+
+    private static PetType petType(int id, String name) {
+        PetType petType = new PetType();
+        petType.setId(id);
+        petType.setName(name);
+        return petType;
+    }
+
+    @Test
+    public void shouldFindIndexedEntities() {
+        List<PetType> petTypes = new ArrayList<>();
+        for (int id = 1; id <= 1000; id++) {
+            petTypes.add(petType(id * 7, "type" + id));
+        }
+        EntityIndex<PetType> index = EntityIndex.of(petTypes, PetType.class);
+
+        assertThat(index.size()).isEqualTo(1000);
+        for (PetType petType : petTypes) {
+            assertThat(index.getById(petType.getId())).isSameAs(petType);
+            assertThat(index.getById(petType.getId())).isSameAs(EntityUtils.getById(petTypes, PetType.class, petType.getId()));
+        }
+        assertThat(index.find(8)).isNull();
+    }
+
+    @Test
+    public void shouldReplaceEntityWithSameId() {
+        EntityIndex<PetType> index = new EntityIndex<>(PetType.class);
+        index.add(petType(1, "cat"));
+        PetType dog = petType(1, "dog");
+        index.add(dog);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.getById(1)).isSameAs(dog);
+    }
+
+    @Test
+    public void shouldThrowObjectRetrievalFailureWhenNotFound() {
+        EntityIndex<PetType> index = new EntityIndex<>(PetType.class);
+        index.add(petType(1, "cat"));
+
+        assertThatThrownBy(() -> index.getById(2))
+            .isInstanceOf(ObjectRetrievalFailureException.class)
+            .hasFieldOrPropertyWithValue("persistentClass", PetType.class)
+            .hasFieldOrPropertyWithValue("identifier", 2);
+    }
+
+}
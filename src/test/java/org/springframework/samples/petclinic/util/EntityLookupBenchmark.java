@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.model.PetType;
+
+/**
+ * JMH benchmark comparing {@link EntityUtils#getById} scans with {@link EntityIndex} lookups.
+ * <p>
+ * Not part of the unit test run; start it from the IDE or with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.util.EntityLookupBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityLookupBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private List<PetType> entities;
+
+    private EntityIndex<PetType> index;
+
+    @Setup
+    public void setUp() {
+        this.entities = new ArrayList<>(this.size);
+        for (int id = 1; id <= this.size; id++) {
+            PetType petType = new PetType();
+            petType.setId(id);
+            petType.setName("type" + id);
+            this.entities.add(petType);
+        }
+        this.index = EntityIndex.of(this.entities, PetType.class);
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(this.size) + 1;
+    }
+
+    @Benchmark
+    public PetType scan() {
+        return EntityUtils.getById(this.entities, PetType.class, randomId());
+    }
+
+    @Benchmark
+    public PetType index() {
+        return this.index.getById(randomId());
+    }
+
+    @Benchmark
+    public EntityIndex<PetType> buildIndex() {
+        return EntityIndex.of(this.entities, PetType.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EntityLookupBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}